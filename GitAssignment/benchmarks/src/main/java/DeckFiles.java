@@ -0,0 +1,103 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Generates deck files for the benchmarks from the cards in "SlaytheSpireReference.csv"
+
+// Valid lines use a real card name with one of its energy costs, invalid lines are a mix of
+// unknown card names, wrong energy costs, bad name characters, non numeric costs and missing colons
+
+public class DeckFiles {
+
+    // Folder containing AllCard.txt and SlaytheSpireReference.csv, the GitAssignment folder by default
+    static final String CATALOG_DIR = System.getProperty("catalogDir", ".");
+
+    private static final String[] INVALID_LINES = {
+            "fakeName:1", "Strike:5", "Str1ke:1", "Defend:one", "Bash 2", ":1", "Zap:20"
+    };
+
+    /**
+     * @return The shared card catalog read from the catalog folder.
+     */
+    static CardCatalog catalog() {
+        return CardCatalog.load(CATALOG_DIR + "/AllCard.txt", CATALOG_DIR + "/SlaytheSpireReference.csv");
+    }
+
+    /**
+     * Generates the lines of a deck.
+     *
+     * @param size The number of lines in the deck.
+     * @param invalidRatio The fraction of lines that are invalid, between 0 and 1.
+     * @return The lines of the deck, the same lines every time for the same size and ratio.
+     */
+    static List<String> lines(int size, double invalidRatio) throws IOException {
+        List<String> validCards = validCards();
+        Random random = new Random(size);
+        List<String> lines = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            if (random.nextDouble() < invalidRatio) {
+                lines.add(INVALID_LINES[random.nextInt(INVALID_LINES.length)]);
+            } else {
+                lines.add(validCards.get(random.nextInt(validCards.size())));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Writes a generated deck to a temporary file.
+     *
+     * @param size The number of lines in the deck.
+     * @param invalidRatio The fraction of lines that are invalid, between 0 and 1.
+     * @return The path of the deck file.
+     */
+    static Path write(int size, double invalidRatio) throws IOException {
+        Path file = Files.createTempFile("deck_" + size + "_", ".txt");
+        file.toFile().deleteOnExit();
+
+        // Lines are generated while writing so large decks are never held in memory
+        List<String> validCards = validCards();
+        Random random = new Random(size);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < size; i++) {
+                if (random.nextDouble() < invalidRatio) {
+                    writer.write(INVALID_LINES[random.nextInt(INVALID_LINES.length)]);
+                } else {
+                    writer.write(validCards.get(random.nextInt(validCards.size())));
+                }
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    // Every valid "CardName:CardCost" combination with a numeric energy cost
+    private static List<String> validCards() throws IOException {
+        List<String> cards = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(CATALOG_DIR + "/SlaytheSpireReference.csv"))) {
+            String line = reader.readLine(); // Skip the header row
+
+            line = reader.readLine();
+            while (line != null) {
+                String[] cardInfo = line.split(",");
+                for (int i = 1; i < Math.min(cardInfo.length, 3); i++) {
+                    String energy = cardInfo[i].trim();
+                    if (energy.length() == 1 && Character.isDigit(energy.charAt(0))) {
+                        cards.add(cardInfo[0].trim() + ":" + energy);
+                    }
+                }
+                line = reader.readLine();
+            }
+        }
+        return cards;
+    }
+}
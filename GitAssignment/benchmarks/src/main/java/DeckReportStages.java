@@ -0,0 +1,101 @@
+import bench.ReportStages;
+import org.jfree.chart.JFreeChart;
+import org.jfree.data.category.CategoryDataset;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Gives the packaged JMH benchmarks access to the report classes in the default package
+
+public class DeckReportStages implements ReportStages {
+
+    // Invalid cards kept as samples, the same as the report programs
+    private static final int INVALID_SAMPLES = 20;
+
+    private final CardCatalog catalog = DeckFiles.catalog();
+    private final CardLineParser parser = new CardLineParser();
+
+    @Override
+    public Path writeDeck(int size, double invalidRatio) throws IOException {
+        return DeckFiles.write(size, invalidRatio);
+    }
+
+    @Override
+    public List<String> deckLines(int size, double invalidRatio) throws IOException {
+        return DeckFiles.lines(size, invalidRatio);
+    }
+
+    @Override
+    public Object readForReport(String file) {
+        return DeckIngestor.readForReport(file, null, INVALID_SAMPLES);
+    }
+
+    // The same card check as MainExtraCredit, through the shared ValidationCache and the shared card catalog,
+    // which is read from the working directory, so run the benchmarks from the GitAssignment folder
+    @Override
+    public Object readForReportExtraCredit(String file) {
+        return DeckIngestor.readForReport(file, MainExtraCredit::validCardChecker, INVALID_SAMPLES);
+    }
+
+    @Override
+    public Object readTotals(String file) {
+        return DeckIngestor.readTotals(file, null, INVALID_SAMPLES);
+    }
+
+    @Override
+    public Object readChunked(String file) {
+        return ChunkedDeckReader.read(file, null, INVALID_SAMPLES, ForkJoinPool.commonPool());
+    }
+
+    @Override
+    public int[] costCounts(String file) {
+        return DeckIngestor.readForReport(file, null, INVALID_SAMPLES).getCostCounts();
+    }
+
+    @Override
+    public int validCardChecker(String line) {
+        return parser.parse(line) == CardLineParser.VALID ? parser.getCost() : -1;
+    }
+
+    @Override
+    public String[] toCard(String line) {
+        return parser.parse(line) == CardLineParser.BAD_FORMAT ? null : parser.toCard();
+    }
+
+    @Override
+    public boolean validCardCombo(String cardName, String cardCost) {
+        return catalog.isValidCombo(cardName, cardCost);
+    }
+
+    @Override
+    public CategoryDataset createDataset(int[] costCounts) {
+        return Histogram.createDataset(costCounts);
+    }
+
+    @Override
+    public JFreeChart createChart(CategoryDataset dataset) {
+        return Histogram.createChart(dataset);
+    }
+
+    @Override
+    public byte[] encodeChartAsPNG(JFreeChart chart) {
+        return Histogram.encodeChartAsPNG(chart);
+    }
+
+    @Override
+    public void generatePDFVariables(String filePath, double totalCost, String deckId, byte[] chartImage) {
+        PDFGenerator.generatePDFVariables(filePath, totalCost, deckId, chartImage);
+    }
+
+    @Override
+    public void generateReportFromTemplate(String filePath, double totalCost, String deckId, byte[] chartImage) {
+        PDFGenerator.generateReportFromTemplate(filePath, totalCost, deckId, chartImage);
+    }
+
+    @Override
+    public void generateVoidReportFromTemplate(String filePath, String deckId) {
+        PDFGenerator.generateVoidReportFromTemplate(filePath, deckId);
+    }
+}
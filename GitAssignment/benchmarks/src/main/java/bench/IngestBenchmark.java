@@ -0,0 +1,72 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Parse stage: reading the totals of a whole deck file, the way Main --totals does, which carries on past the card
+// that makes the report void, and reading them in parallel chunks whatever the size of the deck
+// Decks past DeckIngestor.PARALLEL_THRESHOLD are read in chunks by readTotals as well
+// The read of a deck for its report is measured by ReportReadBenchmark
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class IngestBenchmark {
+
+    @Param({"10", "1000", "100000", "10000000"})
+    public int deckSize;
+
+    @Param({"0.0", "0.1", "0.5"})
+    public double invalidRatio;
+
+    private ReportStages stages;
+    private Path deckFile;
+    private PrintStream err;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stages = ReportStages.load();
+        deckFile = stages.writeDeck(deckSize, invalidRatio);
+
+        // Invalid cards are reported on System.err, which would otherwise be measured as well
+        err = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setErr(err);
+        Files.deleteIfExists(deckFile);
+    }
+
+    @Benchmark
+    public Object readTotals() {
+        return stages.readTotals(deckFile.toString());
+    }
+
+    @Benchmark
+    public Object readChunked() {
+        return stages.readChunked(deckFile.toString());
+    }
+}
@@ -0,0 +1,116 @@
+package bench;
+
+import org.jfree.chart.JFreeChart;
+import org.jfree.data.category.CategoryDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Chart and PDF stages: building the histogram dataset and chart, encoding the chart image and writing the report
+// These stages only see the 7 cost counts and the total cost of a deck, never its cards, so their cost does not
+// depend on the size of the deck, see IngestBenchmark for that
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true"})
+public class ReportBenchmark {
+
+    // Cards in the deck the cost counts come from, just under the size of a void report
+    private static final int DECK_SIZE = 999;
+
+    @Param({"0.0", "0.5"})
+    public double invalidRatio;
+
+    private ReportStages stages;
+    private int[] costCounts;
+    private CategoryDataset dataset;
+    private JFreeChart chart;
+    private byte[] chartImage;
+    private Path reportFolder;
+    private PrintStream err;
+    private PrintStream out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        err = System.err;
+        out = System.out;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        stages = ReportStages.load();
+        Path deckFile = stages.writeDeck(DECK_SIZE, invalidRatio);
+        costCounts = stages.costCounts(deckFile.toString());
+        Files.delete(deckFile);
+
+        dataset = stages.createDataset(costCounts);
+        chart = stages.createChart(dataset);
+        chartImage = stages.encodeChartAsPNG(chart);
+        reportFolder = Files.createTempDirectory("reports");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setErr(err);
+        System.setOut(out);
+        File[] reports = reportFolder.toFile().listFiles();
+        if (reports != null) {
+            for (File report : reports) {
+                report.delete();
+            }
+        }
+        Files.delete(reportFolder);
+    }
+
+    @Benchmark
+    public CategoryDataset createDataset() {
+        return stages.createDataset(costCounts);
+    }
+
+    @Benchmark
+    public JFreeChart createChart() {
+        return stages.createChart(dataset);
+    }
+
+    @Benchmark
+    public byte[] encodeChartAsPNG() {
+        return stages.encodeChartAsPNG(chart);
+    }
+
+    @Benchmark
+    public void generatePDFVariables() {
+        stages.generatePDFVariables(reportFolder.resolve("SpireDeck_123456789.pdf").toString(),
+                25.0, "123456789", chartImage);
+    }
+
+    @Benchmark
+    public void generateReportFromTemplate() {
+        stages.generateReportFromTemplate(reportFolder.resolve("SpireDeck_123456789.pdf").toString(),
+                25.0, "123456789", chartImage);
+    }
+
+    @Benchmark
+    public void generateVoidReportFromTemplate() {
+        stages.generateVoidReportFromTemplate(reportFolder.resolve("SpireDeck_123456789(VOID).pdf").toString(), "123456789");
+    }
+}
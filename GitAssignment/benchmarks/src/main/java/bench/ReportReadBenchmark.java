@@ -0,0 +1,72 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Parse stage: reading a deck file for its report with the rules of Main and with the extra credit catalog checks,
+// which stops once the report is void
+// The report of a deck is void by its 1000th card, so no more than 1000 lines are ever read and larger decks
+// would measure the same read, see IngestBenchmark for the read of a whole deck
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReportReadBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int deckSize;
+
+    @Param({"0.0", "0.1", "0.5"})
+    public double invalidRatio;
+
+    private ReportStages stages;
+    private Path deckFile;
+    private PrintStream err;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stages = ReportStages.load();
+        deckFile = stages.writeDeck(deckSize, invalidRatio);
+
+        // Invalid cards are reported on System.err, which would otherwise be measured as well
+        err = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setErr(err);
+        Files.deleteIfExists(deckFile);
+    }
+
+    @Benchmark
+    public Object readForReport() {
+        return stages.readForReport(deckFile.toString());
+    }
+
+    @Benchmark
+    public Object readForReportExtraCredit() {
+        return stages.readForReportExtraCredit(deckFile.toString());
+    }
+}
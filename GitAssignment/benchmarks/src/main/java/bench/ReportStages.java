@@ -0,0 +1,67 @@
+package bench;
+
+import org.jfree.chart.JFreeChart;
+import org.jfree.data.category.CategoryDataset;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+// The stages of the deck report as seen by the benchmarks
+
+// JMH only accepts benchmark classes inside a package, while the report classes live in the default package,
+// which cannot be imported. The default package DeckReportStages implements this interface and the benchmarks
+// load it by name, so every call is a direct call through a single implementation the JIT can inline.
+
+public interface ReportStages {
+
+    /**
+     * @return The stages backed by the report classes.
+     */
+    static ReportStages load() {
+        try {
+            return (ReportStages) Class.forName("DeckReportStages").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Report classes are not on the classpath", e);
+        }
+    }
+
+    // Deck files generated from the card catalog
+    Path writeDeck(int size, double invalidRatio) throws IOException;
+
+    List<String> deckLines(int size, double invalidRatio) throws IOException;
+
+    // Parse stage, reading a deck the way the reports do and stopping once it is void
+    Object readForReport(String file);
+
+    Object readForReportExtraCredit(String file);
+
+    // Reading the totals of a whole deck, past the card that makes it void, the way --totals does
+    Object readTotals(String file);
+
+    // Reading the totals of a whole deck in parallel chunks, whatever its size
+    Object readChunked(String file);
+
+    int[] costCounts(String file);
+
+    // Validate stage, returning the cost of a valid line or -1
+    int validCardChecker(String line);
+
+    String[] toCard(String line);
+
+    boolean validCardCombo(String cardName, String cardCost);
+
+    // Chart stage
+    CategoryDataset createDataset(int[] costCounts);
+
+    JFreeChart createChart(CategoryDataset dataset);
+
+    byte[] encodeChartAsPNG(JFreeChart chart);
+
+    // PDF stage
+    void generatePDFVariables(String filePath, double totalCost, String deckId, byte[] chartImage);
+
+    void generateReportFromTemplate(String filePath, double totalCost, String deckId, byte[] chartImage);
+
+    void generateVoidReportFromTemplate(String filePath, String deckId);
+}
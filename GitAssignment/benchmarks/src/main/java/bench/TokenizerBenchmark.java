@@ -0,0 +1,82 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Tokenizer: the old split + trim + regex + parse validation path against the CardLineParser, on the same lines
+// Run with -prof gc to see the bytes allocated per line, gc.alloc.rate.norm
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    // Number of lines checked per benchmark call, the length of LINES
+    private static final int LINE_COUNT = 12;
+
+    private static final String[] LINES = {
+            "Strike:1", "Defend:1", "Bash:2", "Genetic Algorithm:1", "All For One:2",
+            "Neutralize:0", "Searing Blow:2", "fakeName:1", ":1", "Expunger:20", "Zap: x", "Blade Dance : 1"
+    };
+
+    private ReportStages stages;
+
+    @Setup
+    public void setUp() {
+        stages = ReportStages.load();
+    }
+
+    // The validation path of readInputFile, validCardChecker and findTotalCost before CardLineParser
+    @Benchmark
+    @OperationsPerInvocation(LINE_COUNT)
+    public long splitAndMatch() {
+        long total = 0;
+        for (String line : LINES) {
+            String[] card = line.split(":");
+            if (card.length == 2) {
+                String cardName = card[0].trim();
+                String cardCost = card[1].trim();
+                boolean valid = !cardName.isEmpty() && cardName.matches("[a-zA-Z ]+");
+                try {
+                    int cost = Integer.parseInt(cardCost.trim());
+                    if (cost < 0 || cost > 6) {
+                        valid = false;
+                    }
+                } catch (NumberFormatException e) {
+                    valid = false;
+                }
+                if (valid) {
+                    total += (long) Double.parseDouble(cardCost);
+                }
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINE_COUNT)
+    public long cardLineParser() {
+        long total = 0;
+        for (String line : LINES) {
+            int cost = stages.validCardChecker(line);
+            if (cost >= 0) {
+                total += cost;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,74 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Validate stage: the cost of checking one line, with lines already in memory
+// Run with -prof gc to see the bytes allocated per line
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ValidateBenchmark {
+
+    private static final int LINES = 1024;
+
+    @Param({"0.0", "0.1", "0.5"})
+    public double invalidRatio;
+
+    private String[] lines;
+    private String[][] cards;
+    private ReportStages stages;
+
+    @Setup
+    public void setUp() throws IOException {
+        stages = ReportStages.load();
+        List<String> deck = stages.deckLines(LINES, invalidRatio);
+        lines = deck.toArray(new String[0]);
+
+        // Pre-split cards for the catalog checks, which are given a trimmed name and cost
+        cards = new String[LINES][];
+        for (int i = 0; i < LINES; i++) {
+            cards[i] = stages.toCard(lines[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int validCardChecker() {
+        int valid = 0;
+        for (String line : lines) {
+            valid += stages.validCardChecker(line);
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public int validCardCombo() {
+        int valid = 0;
+        for (String[] card : cards) {
+            if (card != null && stages.validCardCombo(card[0], card[1])) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+}
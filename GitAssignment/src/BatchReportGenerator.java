@@ -0,0 +1,346 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Generates the reports of every deck file in a directory, or every deck file matching a glob pattern
+
+// Decks run through a ReportPipeline: reading decks waits on the disk, so it runs on its own reader threads,
+// while drawing the chart and writing the PDF keep a core busy, so by default they each get one thread per core.
+// Each deck only lives in its own streaming DeckResult, and the bounded queues between the stages keep a bounded
+// number of decks in flight, so memory stays flat.
+
+// Usage: java BatchReportGenerator <deck directory or glob> [output folder] [--threads N] [--extra-credit]
+//                                   [--validation-cache file] [--combined file] [--content-ids]
+//                                   [--report-cache directory] [--report-cache-size MB] [--metrics file]
+//                                   [--incremental file] [--read-threads N] [--chart-threads N] [--pdf-threads N]
+//                                   [--queue-size N]
+// With --combined every deck is added to a single PDF in the output folder instead of its own SpireDeck_id.pdf
+// With --content-ids a deck ID is a hash of the deck file, and decks identical to one already reported are skipped
+// With --report-cache the report of a deck reported before is copied from the cache without reading the deck
+// With --incremental only the lines appended to every deck since the last run with the same checkpoint file are read
+// With --metrics the time of every report stage and the deck counters are written to the file as JSON at exit
+// --threads sets the chart and PDF threads, and twice as many reader threads, unless a stage is given its own count
+
+public class BatchReportGenerator {
+
+    // Reports only need the totals of a deck, so decks are streamed keeping this many invalid cards as samples
+    // and reading stops as soon as a report is void
+    private static final int INVALID_SAMPLES = 20;
+
+    private final ReportPipeline pipeline;
+    private final CardCheck cardCheck;
+    private final boolean contentIds;
+    private IncrementalDeckReader incrementalReader;
+
+    /**
+     * Creates a batch generator giving every deck a sequential ID.
+     *
+     * @param renderThreads The number of threads drawing charts and writing PDF reports.
+     * @param cardCheck An additional check applied to every card, or `null` for none.
+     */
+    public BatchReportGenerator(int renderThreads, CardCheck cardCheck) {
+        this(renderThreads, cardCheck, false);
+    }
+
+    /**
+     * Creates a batch generator.
+     *
+     * @param renderThreads The number of threads drawing charts and writing PDF reports.
+     * @param cardCheck An additional check applied to every card, or `null` for none.
+     * @param contentIds `true` to give every deck the content ID of its file and skip decks identical to one
+     *                   already reported, `false` to give every deck a sequential ID.
+     */
+    public BatchReportGenerator(int renderThreads, CardCheck cardCheck, boolean contentIds) {
+        this(renderThreads * 2, renderThreads, renderThreads, renderThreads * 4, cardCheck, contentIds);
+    }
+
+    /**
+     * Creates a batch generator with its own number of threads for every stage of the {@link ReportPipeline}.
+     *
+     * @param readThreads The number of threads reading decks.
+     * @param chartThreads The number of threads drawing charts.
+     * @param pdfThreads The number of threads writing PDF reports.
+     * @param queueSize The number of decks waiting between two stages before the earlier stage waits.
+     * @param cardCheck An additional check applied to every card, or `null` for none.
+     * @param contentIds `true` to give every deck the content ID of its file and skip decks identical to one
+     *                   already reported, `false` to give every deck a sequential ID.
+     */
+    public BatchReportGenerator(int readThreads, int chartThreads, int pdfThreads, int queueSize,
+                                CardCheck cardCheck, boolean contentIds) {
+        this.pipeline = new ReportPipeline(readThreads, chartThreads, pdfThreads, queueSize);
+        this.cardCheck = cardCheck;
+        this.contentIds = contentIds;
+    }
+
+    /**
+     * Reads every deck from where the last read of the same deck stopped, see {@link IncrementalDeckReader}.
+     *
+     * @param incrementalReader The checkpoints of the decks, or `null` to read every deck from the start.
+     */
+    public void setIncrementalReader(IncrementalDeckReader incrementalReader) {
+        this.incrementalReader = incrementalReader;
+    }
+
+    /**
+     * Generates the report of every deck file and waits until all of them are written.
+     *
+     * @param deckFiles The deck files to report.
+     * @param folder The folder the reports are written to, ending with a path separator.
+     *
+     * @return The number of reports written.
+     */
+    public int generateReports(List<Path> deckFiles, String folder) throws InterruptedException {
+        return generate(deckFiles, null, folder, job ->
+                ReportGenerator.writeReport(folder, job.deckId, job.deck, job.chartImage));
+    }
+
+    /**
+     * Generates the report of every deck file and waits until all of them are written, copying the report of
+     * every deck that was reported before from the cache.
+     *
+     * @param deckFiles The deck files to report.
+     * @param folder The folder the reports are written to, ending with a path separator.
+     * @param cache The report cache.
+     *
+     * @return The number of reports written, including the reports copied from the cache.
+     */
+    public int generateReports(List<Path> deckFiles, String folder, ReportCache cache) throws InterruptedException {
+        return generate(deckFiles, cache, folder, job -> {
+            try {
+                ReportGenerator.writeCachedReport(cache, job.cacheKey, folder, job.deckId, job.deck, job.chartImage);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Generates the report of every deck into a single combined PDF and waits until all of them are added.
+     * Decks are added in the order their reports are ready, the index of the report lists them in that order.
+     *
+     * @param deckFiles The deck files to report.
+     * @param filePath The file path of the combined report.
+     *
+     * @return The number of decks added to the report.
+     */
+    public int generateCombinedReport(List<Path> deckFiles, String filePath) throws IOException, InterruptedException {
+        try (CombinedReport report = new CombinedReport(filePath)) {
+            return generate(deckFiles, null, null, job ->
+                    ReportGenerator.addToCombinedReport(report, job.deckId, job.deck, job.chartImage));
+        }
+    }
+
+    // Reads every deck on the reader threads, then draws its chart and writes its report on the later stages
+    // With a cache, a deck reported before is copied from the cache by its reader thread and never rendered
+    private int generate(List<Path> deckFiles, ReportCache cache, String folder,
+                         Consumer<ReportPipeline.DeckJob> write) throws InterruptedException {
+        AtomicInteger written = new AtomicInteger();
+        Set<String> reportedHashes = ConcurrentHashMap.newKeySet();
+        Map<String, String> hashesById = new ConcurrentHashMap<>();
+
+        pipeline.run(deckFiles, job -> {
+            job.deckId = deckId(job.file, reportedHashes, hashesById);
+            if (job.deckId == null) {
+                return false;
+            }
+
+            if (cache != null) {
+                try {
+                    job.cacheKey = ReportGenerator.cacheKey(job.file, cardCheck);
+                    if (ReportGenerator.copyCachedReport(cache, job.cacheKey, folder, job.deckId) != null) {
+                        written.incrementAndGet();
+                        return false;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            job.deck = incrementalReader != null ? incrementalReader.readForReport(job.file, cardCheck, INVALID_SAMPLES)
+                    : DeckIngestor.readForReport(job.file, cardCheck, INVALID_SAMPLES);
+            job.deck.getDiagnostics().printSummary(job.file, System.err);
+            return true;
+        }, job -> {
+            write.accept(job);
+            written.incrementAndGet();
+        });
+
+        return written.get();
+    }
+
+    // With content IDs, decks are told apart by the full SHA-256 hash of their file, the short content ID only
+    // names the report. Returns `null` for a deck with the same bytes as one already reported.
+    private String deckId(String file, Set<String> reportedHashes, Map<String, String> hashesById) {
+        if (!contentIds) {
+            return ReportGenerator.generateFileId(file);
+        }
+        try {
+            String hash = ReportCache.contentHash(file);
+            String deckId = DeckIdService.contentId(file);
+            if (!reportedHashes.add(hash)) {
+                System.out.println("Skipped " + file + ", same deck as an earlier deck of the batch");
+                return null;
+            }
+
+            // Two different decks with the same content ID, the later one gets a sequential ID instead so
+            // its report does not replace the other one
+            String other = hashesById.putIfAbsent(deckId, hash);
+            return other == null ? deckId : ReportGenerator.generateFileId(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stops the threads of every stage.
+     */
+    public void shutdown() {
+        pipeline.shutdown();
+    }
+
+    /**
+     * Lists the deck files to report.
+     *
+     * A directory gives every ".txt" and ".deck" file directly inside it. Anything else is read as a glob pattern on the
+     * file names of its parent directory, such as "decks/SpireDeck_*.txt".
+     *
+     * @param location The deck directory or glob pattern.
+     *
+     * @return The deck files, sorted by path.
+     */
+    public static List<Path> findDeckFiles(String location) throws IOException {
+        Path path = Paths.get(location);
+        Path directory;
+        String glob;
+
+        if (Files.isDirectory(path)) {
+            directory = path;
+            glob = "*.{txt,deck}";
+        } else {
+            directory = path.getParent() == null ? Paths.get(".") : path.getParent();
+            glob = path.getFileName().toString();
+        }
+
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        List<Path> deckFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file) && matcher.matches(file.getFileName())) {
+                    deckFiles.add(file);
+                }
+            }
+        }
+
+        deckFiles.sort(null);
+        return deckFiles;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // Batch reports never display the histogram
+        System.setProperty("java.awt.headless", "true");
+
+        String location = null;
+        String folder = "." + File.separator;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int readThreads = 0;
+        int chartThreads = 0;
+        int pdfThreads = 0;
+        int queueSize = 0;
+        CardCheck cardCheck = null;
+        Path cacheFile = null;
+        String combined = null;
+        boolean contentIds = false;
+        Path reportCache = null;
+        Path incrementalFile = null;
+        long reportCacheBytes = ReportCache.DEFAULT_MAX_BYTES;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--read-threads")) {
+                readThreads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--chart-threads")) {
+                chartThreads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--pdf-threads")) {
+                pdfThreads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--queue-size")) {
+                queueSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--extra-credit")) {
+                cardCheck = MainExtraCredit::validCardChecker;
+            } else if (args[i].equals("--validation-cache")) {
+                cacheFile = Paths.get(args[++i]);
+            } else if (args[i].equals("--content-ids")) {
+                contentIds = true;
+            } else if (args[i].equals("--report-cache")) {
+                reportCache = Paths.get(args[++i]);
+            } else if (args[i].equals("--report-cache-size")) {
+                reportCacheBytes = Long.parseLong(args[++i]) * 1024 * 1024;
+            } else if (args[i].equals("--incremental")) {
+                incrementalFile = Paths.get(args[++i]);
+            } else if (args[i].equals("--metrics")) {
+                ReportMetrics.dumpAtExit(Paths.get(args[++i]));
+            } else if (args[i].equals("--combined")) {
+                combined = args[++i];
+            } else if (location == null) {
+                location = args[i];
+            } else {
+                folder = args[i].endsWith(File.separator) ? args[i] : args[i] + File.separator;
+            }
+        }
+
+        if (location == null) {
+            System.err.println("Usage: java BatchReportGenerator <deck directory or glob> [output folder] [--threads N] [--extra-credit]"
+                    + " [--validation-cache file] [--combined file] [--content-ids] [--report-cache directory] [--report-cache-size MB]"
+                    + " [--metrics file] [--incremental file] [--read-threads N] [--chart-threads N] [--pdf-threads N]"
+                    + " [--queue-size N]");
+            return;
+        }
+
+        // Decks of the same batch job repeat the same cards, so card checks of earlier runs are reused
+        if (cacheFile != null) {
+            ValidationCache.getInstance().load(cacheFile);
+        }
+
+        List<Path> deckFiles = findDeckFiles(location);
+        BatchReportGenerator batch = new BatchReportGenerator(readThreads > 0 ? readThreads : threads * 2,
+                chartThreads > 0 ? chartThreads : threads, pdfThreads > 0 ? pdfThreads : threads,
+                queueSize > 0 ? queueSize : threads * 4, cardCheck, contentIds);
+        IncrementalDeckReader incrementalReader = incrementalFile == null ? null : new IncrementalDeckReader(incrementalFile);
+        batch.setIncrementalReader(incrementalReader);
+
+        long start = System.nanoTime();
+        int written;
+        if (combined != null) {
+            written = batch.generateCombinedReport(deckFiles, folder + combined);
+        } else if (reportCache != null) {
+            written = batch.generateReports(deckFiles, folder, new ReportCache(reportCache, reportCacheBytes));
+        } else {
+            written = batch.generateReports(deckFiles, folder);
+        }
+        batch.shutdown();
+
+        if (incrementalReader != null) {
+            incrementalReader.save();
+        }
+
+        if (cacheFile != null) {
+            ValidationCache.getInstance().save(cacheFile);
+        }
+
+        System.out.println(written + " of " + deckFiles.size() + " deck reports generated in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,364 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Compact binary format for archived decks, so a deck that is reported again and again is only parsed once
+
+// Layout of a ".deck" file, every number is an unsigned varint unless said otherwise:
+//   "SPDK" magic, format version byte
+//   groups of up to 8 cards in deck order, each one:
+//     number of cards in the group, 0 ends the deck
+//     the energy cost of every card of the group packed in 3 bits, where 7 marks a card that failed the line rules
+//     for every card, the index of its trimmed name in the names seen so far, where an index equal to the number
+//     of names seen so far adds a new name given as a byte length and UTF-8 bytes, followed by the cost text
+//     as a byte length and UTF-8 bytes for a card that failed the line rules
+//   CRC32 of everything before it, as a 4 byte big endian int
+// Lines without a name and a cost separated by a colon are not cards, so they are not kept.
+
+// A deck is written and read as a stream, one group at a time, so neither ever holds the whole deck in memory.
+// Every number read is checked against what the deck can hold, so a damaged deck is reported as invalid.
+
+// Usage: java BinaryDeck <deck text file> [binary deck file]
+
+public class BinaryDeck {
+
+    // Extension of binary deck files, DeckIngestor reads any file ending with it as a binary deck
+    public static final String EXTENSION = ".deck";
+
+    private static final byte[] MAGIC = {'S', 'P', 'D', 'K'};
+    private static final int VERSION = 2;
+
+    // Cards in a group, their packed costs always fit in 3 bytes
+    private static final int GROUP_SIZE = 8;
+
+    // Packed cost of a card that failed the line rules, its cost text is kept in the invalid cost list
+    private static final int INVALID_COST = 7;
+
+    /**
+     * Checks if a deck file is a binary deck from its extension.
+     *
+     * @param file The path to the deck file.
+     * @return `true` if the file is a binary deck, `false` for a text deck.
+     */
+    public static boolean isBinaryDeck(String file) {
+        return file.endsWith(EXTENSION);
+    }
+
+    /**
+     * Converts a text deck into a binary deck.
+     *
+     * @param textFile The path to the text deck, one "CardName:CardCost" card per line.
+     * @param binaryFile The path the binary deck is written to.
+     *
+     * @return The number of cards written.
+     */
+    public static int convert(String textFile, String binaryFile) throws IOException {
+        CardLineParser parser = new CardLineParser();
+        Map<String, Integer> dictionary = new HashMap<>();
+        CRC32 checksum = new CRC32();
+
+        // The cards of the current group, written once the group is full
+        int[] costs = new int[GROUP_SIZE];
+        ByteArrayOutputStream cards = new ByteArrayOutputStream();
+        int groupCount = 0;
+        int cardCount = 0;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(textFile));
+             OutputStream file = new BufferedOutputStream(Files.newOutputStream(Paths.get(binaryFile)))) {
+            OutputStream out = new CheckedOutputStream(file, checksum);
+            out.write(MAGIC);
+            out.write(VERSION);
+
+            String line = reader.readLine();
+            while (line != null) {
+                int status = parser.parse(line);
+
+                if (status != CardLineParser.BAD_FORMAT) {
+                    String name = parser.getCardName();
+                    Integer id = dictionary.get(name);
+                    if (id == null) {
+                        // A new name is written where it is first used
+                        writeVarint(cards, dictionary.size());
+                        writeString(cards, name);
+                        dictionary.put(name, dictionary.size());
+                    } else {
+                        writeVarint(cards, id);
+                    }
+
+                    if (status == CardLineParser.VALID) {
+                        costs[groupCount++] = parser.getCost();
+                    } else {
+                        costs[groupCount++] = INVALID_COST;
+                        writeString(cards, parser.getCardCost());
+                    }
+                    cardCount++;
+
+                    if (groupCount == GROUP_SIZE) {
+                        writeGroup(out, costs, groupCount, cards);
+                        groupCount = 0;
+                    }
+                }
+
+                line = reader.readLine();
+            }
+
+            if (groupCount > 0) {
+                writeGroup(out, costs, groupCount, cards);
+            }
+            writeVarint(out, 0);
+
+            // The checksum itself is written past the checked stream
+            int crc = (int) checksum.getValue();
+            file.write(crc >>> 24);
+            file.write(crc >>> 16);
+            file.write(crc >>> 8);
+            file.write(crc);
+        }
+
+        return cardCount;
+    }
+
+    /**
+     * Reads a binary deck into a result, giving the same totals as reading the text deck it was converted from.
+     *
+     * Cards that passed the line rules when the deck was converted are never parsed again, only the card limit
+     * and the card check are applied to them. A deck with a bad checksum or an unknown format version is reported
+     * and nothing is read from it. The checksum is checked first by streaming through the whole file, then the
+     * cards are read one group at a time.
+     *
+     * @param file The path to the binary deck.
+     * @param cardCheck An additional check applied to the trimmed card name and card cost, or `null` for none.
+     * @param result The result the cards are added to.
+     * @param stopWhenVoid `true` to stop reading as soon as the report is void.
+     *
+     * @return The result of the deck.
+     */
+    static DeckResult read(String file, CardCheck cardCheck, DeckResult result, boolean stopWhenVoid) {
+        long length;
+        try {
+            length = Files.size(Paths.get(file));
+            if (!isValid(file, length)) {
+                System.err.println("Invalid binary deck: " + file);
+                return result;
+            }
+        } catch (IOException e) {
+            System.err.println(e);
+            return result;
+        }
+
+        try (DeckInput in = new DeckInput(new BufferedInputStream(Files.newInputStream(Paths.get(file))),
+                length - 4)) {
+            in.skip(MAGIC.length + 1);
+            readCards(in, cardCheck, result, stopWhenVoid);
+
+        // Handle I/O exceptions during file reading, including a deck whose numbers are out of range
+        } catch (IOException e) {
+            System.err.println(e.getMessage() != null && e.getMessage().startsWith("Invalid binary deck")
+                    ? e.getMessage() + ": " + file : e.toString());
+        }
+
+        return result;
+    }
+
+    private static void readCards(DeckInput in, CardCheck cardCheck, DeckResult result, boolean stopWhenVoid)
+            throws IOException {
+        List<String> names = new ArrayList<>();
+
+        CardLineParser parser = new CardLineParser();
+        ValidationDiagnostics diagnostics = result.getDiagnostics();
+
+        int groupCount = in.varint(GROUP_SIZE);
+        while (groupCount > 0) {
+            // The packed costs of the group, lowest bits first
+            int packed = 0;
+            for (int i = 0; i < (groupCount * 3 + 7) / 8; i++) {
+                packed |= in.read() << (8 * i);
+            }
+
+            for (int i = 0; i < groupCount; i++) {
+                int cost = (packed >>> (3 * i)) & 7;
+                int id = in.varint(names.size());
+                if (id == names.size()) {
+                    names.add(in.string());
+                }
+                String name = names.get(id);
+
+                if (cost == INVALID_COST) {
+                    // Cards that failed the line rules are rare, so they are parsed again for their diagnostics
+                    int status = parser.parse(name + ':' + in.string());
+                    DeckIngestor.recordInvalidCard(status, parser, diagnostics);
+                    result.addInvalidCard(result.keepsNextInvalidCard() ? parser.toCard() : null);
+
+                // Cards past the limit are invalid no matter their name or cost
+                } else if (result.getCardCount() < DeckIngestor.MAX_CARDS
+                        && (cardCheck == null || cardCheck.test(name, CardLineParser.COST_TEXT[cost], diagnostics))) {
+                    result.addValidCard(cost);
+                } else {
+                    result.addInvalidCard(result.keepsNextInvalidCard() ? new String[]{name, CardLineParser.COST_TEXT[cost]} : null);
+                }
+
+                // Nothing past this card can change a void report
+                if (stopWhenVoid && result.isVoid()) {
+                    result.stopEarly();
+                    return;
+                }
+            }
+
+            groupCount = in.varint(GROUP_SIZE);
+        }
+
+        // The end of the cards must be right before the checksum
+        if (in.remaining != 0) {
+            throw new IOException("Invalid binary deck, data after the last card");
+        }
+    }
+
+    // Checks the magic, the format version and the checksum, streaming through the file
+    private static boolean isValid(String file, long length) throws IOException {
+        if (length < MAGIC.length + 6) {
+            return false;
+        }
+
+        try (CheckedInputStream in = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(Paths.get(file))), new CRC32())) {
+            byte[] header = in.readNBytes(MAGIC.length + 1);
+            if (!Arrays.equals(header, 0, MAGIC.length, MAGIC, 0, MAGIC.length) || header[MAGIC.length] != VERSION) {
+                return false;
+            }
+
+            byte[] buffer = new byte[64 * 1024];
+            long remaining = length - 4 - header.length;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    return false;
+                }
+                remaining -= read;
+            }
+            long expected = in.getChecksum().getValue();
+
+            // The checksum itself is not part of what it checks
+            byte[] crc = new byte[4];
+            if (in.readNBytes(crc, 0, crc.length) != crc.length) {
+                return false;
+            }
+            int stored = (crc[0] & 0xFF) << 24 | (crc[1] & 0xFF) << 16 | (crc[2] & 0xFF) << 8 | (crc[3] & 0xFF);
+            return stored == (int) expected;
+        }
+    }
+
+    private static void writeGroup(OutputStream out, int[] costs, int count, ByteArrayOutputStream cards) throws IOException {
+        writeVarint(out, count);
+        int packed = 0;
+        for (int i = 0; i < count; i++) {
+            packed |= costs[i] << (3 * i);
+        }
+        for (int i = 0; i < (count * 3 + 7) / 8; i++) {
+            out.write(packed >>> (8 * i));
+        }
+        cards.writeTo(out);
+        cards.reset();
+    }
+
+    private static void writeString(OutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    // Writes 7 bits per byte, lowest bits first, with the high bit set on every byte but the last
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    // Reads the cards of a deck up to its checksum, checking every number against what the deck can hold
+    private static class DeckInput implements AutoCloseable {
+        private final InputStream in;
+        private long remaining;
+
+        private DeckInput(InputStream in, long remaining) {
+            this.in = in;
+            this.remaining = remaining;
+        }
+
+        private int read() throws IOException {
+            int b = remaining > 0 ? in.read() : -1;
+            if (b < 0) {
+                throw new IOException("Invalid binary deck, it ends before its last card");
+            }
+            remaining--;
+            return b;
+        }
+
+        private void skip(int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                read();
+            }
+        }
+
+        // Reads a varint that can be at most max
+        private int varint(int max) throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if (b < 0x80) {
+                    if (value > max) {
+                        throw new IOException("Invalid binary deck, " + value + " is more than " + max);
+                    }
+                    return (int) value;
+                }
+            }
+            throw new IOException("Invalid binary deck, a number is longer than 5 bytes");
+        }
+
+        private String string() throws IOException {
+            int length = varint((int) Math.min(Integer.MAX_VALUE, remaining));
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length != length) {
+                throw new IOException("Invalid binary deck, it ends before its last card");
+            }
+            remaining -= length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java BinaryDeck <deck text file> [binary deck file]");
+            return;
+        }
+
+        String textFile = args[0];
+        String binaryFile = args.length > 1 ? args[1] : textFile.replaceFirst("\\.txt$", "") + EXTENSION;
+
+        int cards = convert(textFile, binaryFile);
+        System.out.println(cards + " cards converted to " + binaryFile + " (" + Files.size(Paths.get(textFile))
+                + " bytes -> " + Files.size(Paths.get(binaryFile)) + " bytes)");
+    }
+}
@@ -0,0 +1,207 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// In-memory index of every card in the Slay the Spire game
+// Text files derived from excel sheet found here: https://www.reddit.com/r/slaythespire/comments/yjll3t/pdf_printable_card_guide/
+
+// The card list and the card energy reference are read once and shared by every validation call,
+// so checking a card name or a card name + energy combo is a single hash lookup instead of a file scan
+
+public class CardCatalog {
+
+    private static final String CARD_FILE = "AllCard.txt";
+    private static final String CSV_FILE = "SlaytheSpireReference.csv";
+
+    // Card names are compared ignoring case, so every key is stored in lower case
+    private final Set<String> cardNames;
+    private final Map<String, String[]> cardEnergies;
+
+    // Card names as they are written in the card file, in file order
+    private final List<String> cardList;
+
+    // Changes whenever a card name or energy cost changes, so saved validation results can be checked against it
+    private final int version;
+
+    private CardCatalog(Set<String> cardNames, Map<String, String[]> cardEnergies, List<String> cardList) {
+        this.cardNames = Collections.unmodifiableSet(cardNames);
+        this.cardEnergies = Collections.unmodifiableMap(cardEnergies);
+        this.cardList = Collections.unmodifiableList(cardList);
+
+        int energyHash = 0;
+        for (Map.Entry<String, String[]> energies : cardEnergies.entrySet()) {
+            energyHash += energies.getKey().hashCode() ^ Arrays.hashCode(energies.getValue());
+        }
+        this.version = 31 * cardNames.hashCode() + energyHash;
+    }
+
+    // Holder class so the catalog files are only read the first time the catalog is used
+    private static class Holder {
+        private static final CardCatalog INSTANCE = load(CARD_FILE, CSV_FILE);
+    }
+
+    /**
+     * Returns the shared catalog built from "AllCard.txt" and "SlaytheSpireReference.csv".
+     *
+     * @return The shared card catalog.
+     */
+    public static CardCatalog getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Builds a catalog from a card name file and a card energy reference file.
+     *
+     * The card name file contains one card name per line. The energy reference file is a CSV with a header row
+     * followed by rows of "Name,Cost,Cost2", where Cost2 is the card's alternative energy cost and may be empty.
+     * If a file cannot be read the error is reported and the catalog is built from whatever was read.
+     *
+     * @param cardFile The path to the file containing every valid card name.
+     * @param csvFile The path to the CSV file containing the energy costs of every card.
+     *
+     * @return The card catalog.
+     */
+    public static CardCatalog load(String cardFile, String csvFile) {
+        Set<String> cardNames = new HashSet<>();
+        Map<String, String[]> cardEnergies = new HashMap<>();
+        List<String> cardList = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(cardFile))) {
+            String card = reader.readLine();
+
+            // Loop through each line in the file
+            while (card != null) {
+                card = card.trim(); // Ensure additional spaces don't follow
+
+                if (!card.isEmpty() && cardNames.add(key(card))) {
+                    cardList.add(card);
+                }
+
+                card = reader.readLine();
+            }
+
+        // Handle I/O exceptions during file reading
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(csvFile))) {
+            String line = reader.readLine(); // Skip the header row
+
+            line = reader.readLine();
+            while (line != null) {
+                // Split by comma, card[0] is card name, card[1] is energy cost, card[2] is the alternative energy cost
+                String[] cardInfo = line.split(",");
+
+                if (cardInfo.length > 1) {  // Ensure there's at least a name and energy column
+                    String csvCardName = cardInfo[0].trim();
+                    String csvCardEnergy = cardInfo[1].trim();
+
+                    // Check card's alternative energy card if it exists
+                    if (cardInfo.length > 2 && !cardInfo[2].trim().isEmpty()) {
+                        cardEnergies.put(key(csvCardName), new String[]{csvCardEnergy, cardInfo[2].trim()});
+                    } else {
+                        cardEnergies.put(key(csvCardName), new String[]{csvCardEnergy});
+                    }
+                }
+
+                line = reader.readLine();
+            }
+
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+
+        return new CardCatalog(cardNames, cardEnergies, cardList);
+    }
+
+    /**
+     * Checks if a card name is a card in the Slay the Spire game, ignoring case.
+     *
+     * @param cardName The name of the card.
+     * @return `true` if the card name is in the catalog, `false` otherwise.
+     */
+    public boolean isCard(String cardName) {
+        return cardName != null && cardNames.contains(key(cardName));
+    }
+
+    /**
+     * Checks if a card has a cost listed in the energy reference for the card, ignoring case of the card name.
+     *
+     * @param cardName The name of the card.
+     * @return `true` if the card has an energy cost listed, `false` otherwise.
+     */
+    public boolean hasEnergy(String cardName) {
+        return cardName != null && cardEnergies.containsKey(key(cardName));
+    }
+
+    /**
+     * Checks if the energy is either the cost or the alternative cost of the card.
+     *
+     * @param cardName The name of the card.
+     * @param cardEnergy The energy cost of the card.
+     * @return `true` if the cardName and cardEnergy combo is valid, `false` otherwise.
+     */
+    public boolean isValidCombo(String cardName, String cardEnergy) {
+        if (cardName == null || cardEnergy == null) {
+            return false;
+        }
+
+        String[] energies = cardEnergies.get(key(cardName));
+        if (energies == null) {
+            return false;
+        }
+
+        for (String energy : energies) {
+            if (energy.equals(cardEnergy)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists the valid energy costs of a card, separated by commas.
+     *
+     * @param cardName The name of the card.
+     * @return The valid energy costs of the card, or an empty string if the card has no energy listed.
+     */
+    public String getValidEnergies(String cardName) {
+        String[] energies = cardName == null ? null : cardEnergies.get(key(cardName));
+        return energies == null ? "" : String.join(", ", energies);
+    }
+
+    /**
+     * @return The number of card names in the catalog.
+     */
+    public int size() {
+        return cardNames.size();
+    }
+
+    /**
+     * @return Every card name as it is written in the card file, in file order.
+     */
+    public List<String> getCardNames() {
+        return cardList;
+    }
+
+    /**
+     * @return A hash of every card name and energy cost in the catalog, the same for catalogs built from the same files.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    private static String key(String cardName) {
+        return cardName.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * An additional check applied to a card after it passed the line format, card name and card cost rules,
+ * such as checking the card against the Slay the Spire game.
+ */
+@FunctionalInterface
+public interface CardCheck {
+
+    /**
+     * Checks a card, recording why it is invalid.
+     *
+     * @param cardName The trimmed name of the card.
+     * @param cardCost The trimmed cost of the card.
+     * @param diagnostics The collector the validation errors of the card are recorded in.
+     * @return `true` if the card is valid, `false` otherwise.
+     */
+    boolean test(String cardName, String cardCost, ValidationDiagnostics diagnostics);
+}
@@ -0,0 +1,161 @@
+// Character level tokenizer and validator for a single "CardName:CardCost" line of a deck file
+
+// The line is scanned in place: the colon is located, the card name is checked against the alphabetic + space rule
+// and the 0 - 6 energy cost is parsed without creating substrings, split arrays or regex Pattern objects.
+// The positions of the trimmed name and cost are kept so the caller only builds Strings for the cards it stores.
+
+public class CardLineParser {
+
+    // Result of parsing a line, checked in this order
+    public static final int VALID = 0;
+    public static final int BAD_FORMAT = 1;      // The line does not contain exactly a name and a cost separated by a colon
+    public static final int EMPTY_NAME = 2;      // The card name is empty or only spaces
+    public static final int BAD_NAME = 3;        // The card name contains characters other than letters and spaces
+    public static final int BAD_COST_FORMAT = 4; // The card cost is not a number
+    public static final int BAD_COST_RANGE = 5;  // The card cost is not between 0 and 6
+
+    // Shared cost Strings so a valid card never allocates its cost text
+    static final String[] COST_TEXT = {"0", "1", "2", "3", "4", "5", "6"};
+
+    private CharSequence line;
+    private int nameStart;
+    private int nameEnd;
+    private int costStart;
+    private int costEnd;
+    private int cost;
+
+    /**
+     * Parses and validates a single line of a deck file.
+     *
+     * A line is split on its colon the same way "CardName:CardCost".split(":") would, so trailing colons are ignored
+     * and any other extra colon makes the line badly formatted. The name and cost are trimmed, the name must only
+     * contain letters and spaces and the cost must be a whole number between 0 and 6 (inclusive).
+     *
+     * @param line The line to parse.
+     * @return `VALID` if the card is valid, otherwise the code of the first check the line failed.
+     */
+    public int parse(CharSequence line) {
+        this.line = line;
+        this.cost = -1;
+
+        // Ignore trailing colons
+        int end = line.length();
+        while (end > 0 && line.charAt(end - 1) == ':') {
+            end--;
+        }
+
+        // Find the colon separating the card name and the energy cost
+        int colon = -1;
+        for (int i = 0; i < end; i++) {
+            if (line.charAt(i) == ':') {
+                if (colon >= 0) {
+                    return BAD_FORMAT; // More than two elements
+                }
+                colon = i;
+            }
+        }
+        if (colon < 0) {
+            nameStart = nameEnd = costStart = costEnd = 0;
+            return BAD_FORMAT;
+        }
+
+        // Trim spaces around the name and the cost
+        nameStart = skipSpaces(0, colon);
+        nameEnd = trimEnd(nameStart, colon);
+        costStart = skipSpaces(colon + 1, end);
+        costEnd = trimEnd(costStart, end);
+
+        // Check a card with empty name, a card with name that is only spaces or tabs
+        if (nameStart == nameEnd) {
+            return EMPTY_NAME;
+        }
+
+        // Ensure card name is strictly alphabetical
+        for (int i = nameStart; i < nameEnd; i++) {
+            char c = line.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == ' ')) {
+                return BAD_NAME;
+            }
+        }
+
+        return parseCost();
+    }
+
+    // Parses the cost in place, accepting the same optional sign and leading zeros as Integer.parseInt
+    private int parseCost() {
+        int i = costStart;
+        boolean negative = false;
+
+        if (i < costEnd && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+        if (i == costEnd) {
+            return BAD_COST_FORMAT;
+        }
+
+        int value = 0;
+        boolean outOfRange = false;
+        for (; i < costEnd; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return BAD_COST_FORMAT;
+            }
+            // Any value past 6 is out of range, so stop accumulating instead of overflowing
+            if (!outOfRange) {
+                value = value * 10 + (c - '0');
+                outOfRange = value > 6;
+            }
+        }
+
+        // Energy cards are typically between 0 - 6
+        if (outOfRange || (negative && value != 0)) {
+            return BAD_COST_RANGE;
+        }
+
+        cost = value;
+        return VALID;
+    }
+
+    private int skipSpaces(int from, int to) {
+        while (from < to && line.charAt(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimEnd(int from, int to) {
+        while (to > from && line.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * @return The energy cost of the last parsed card, or -1 if the line was not valid.
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * @return The trimmed card name of the last parsed line.
+     */
+    public String getCardName() {
+        return line.subSequence(nameStart, nameEnd).toString();
+    }
+
+    /**
+     * @return The trimmed card cost of the last parsed line, shared for valid costs.
+     */
+    public String getCardCost() {
+        return cost >= 0 ? COST_TEXT[cost] : line.subSequence(costStart, costEnd).toString();
+    }
+
+    /**
+     * @return The last parsed card as a String array containing the card name (index 0) and card cost (index 1).
+     */
+    public String[] toCard() {
+        return new String[]{getCardName(), getCardCost()};
+    }
+}
@@ -0,0 +1,243 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// "Did you mean" suggestions for card names that are not in the card catalog
+
+// The catalog names are kept in a trie of their lowercase letters. A lookup walks the trie computing one row of the
+// edit distance table for each letter, so names sharing a beginning share its rows, and it never goes below a
+// letter once every value of the row is past the limit. A lookup only visits the few branches that start close
+// to the unknown name instead of comparing it to every catalog name.
+
+public class CardSuggester {
+
+    // Suggestions given for an unknown card name
+    protected static final int MAX_SUGGESTIONS = 3;
+
+    private final CardCatalog catalog;
+    private final Node root = new Node();
+
+    // Length of the longest catalog name, the deepest a lookup can go
+    private final int maxLength;
+
+    // A letter of the trie, with the catalog name ending at it, if any
+    private static final class Node {
+        private char[] letters = new char[0];
+        private Node[] children = new Node[0];
+        private String name;
+
+        private Node child(char letter) {
+            for (int i = 0; i < letters.length; i++) {
+                if (letters[i] == letter) {
+                    return children[i];
+                }
+            }
+
+            Node child = new Node();
+            letters = Arrays.copyOf(letters, letters.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            letters[letters.length - 1] = letter;
+            children[children.length - 1] = child;
+            return child;
+        }
+    }
+
+    /**
+     * A catalog name close to an unknown card name.
+     */
+    public static final class Suggestion {
+        private final String cardName;
+        private final int distance;
+        private final String validEnergies;
+
+        private Suggestion(String cardName, int distance, String validEnergies) {
+            this.cardName = cardName;
+            this.distance = distance;
+            this.validEnergies = validEnergies;
+        }
+
+        /**
+         * @return The card name as it is written in the card file.
+         */
+        public String getCardName() {
+            return cardName;
+        }
+
+        /**
+         * @return The number of characters to add, remove or change to go from the unknown name to this one.
+         */
+        public int getDistance() {
+            return distance;
+        }
+
+        /**
+         * @return The valid energy costs of the card, separated by commas, or an empty string if none are listed.
+         */
+        public String getValidEnergies() {
+            return validEnergies;
+        }
+    }
+
+    // Holder class so the trie is only built the first time a suggestion is needed
+    private static class Holder {
+        private static final CardSuggester INSTANCE = new CardSuggester(CardCatalog.getInstance());
+    }
+
+    /**
+     * Builds the trie of every card name of a catalog.
+     *
+     * @param catalog The card catalog.
+     */
+    public CardSuggester(CardCatalog catalog) {
+        this.catalog = catalog;
+
+        int longest = 0;
+        for (String name : catalog.getCardNames()) {
+            String key = key(name);
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.child(key.charAt(i));
+            }
+
+            // The same name twice, such as a name listed in two cases, keeps its first spelling
+            if (node.name == null) {
+                node.name = name;
+            }
+            longest = Math.max(longest, key.length());
+        }
+        this.maxLength = longest;
+    }
+
+    /**
+     * @return The suggester of the shared card catalog.
+     */
+    public static CardSuggester getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Finds the catalog names closest to a card name, ignoring case.
+     *
+     * Names are only suggested within a third of the length of the name, at least 1 and at most 3 edits,
+     * so a short name is never matched to an unrelated short card. The limit grows one edit at a time and stops
+     * at the first distance with a suggestion, as most typos are a single edit and a small limit visits
+     * far less of the trie.
+     *
+     * @param cardName The unknown card name.
+     * @return At most {@link #MAX_SUGGESTIONS} suggestions at the closest distance, or none if no name is close enough.
+     */
+    public List<Suggestion> suggest(String cardName) {
+        List<Suggestion> suggestions = new ArrayList<>();
+        if (cardName == null) {
+            return suggestions;
+        }
+
+        int limit = Math.max(1, Math.min(3, key(cardName).length() / 3));
+        for (int maxDistance = 1; maxDistance <= limit && suggestions.isEmpty(); maxDistance++) {
+            suggestions = suggest(cardName, maxDistance, MAX_SUGGESTIONS);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Finds the catalog names closest to a card name, ignoring case.
+     *
+     * @param cardName The unknown card name.
+     * @param maxDistance The largest edit distance of a suggestion.
+     * @param maxSuggestions The number of suggestions to return at most.
+     *
+     * @return The suggestions, closest first and then in alphabetical order.
+     */
+    public List<Suggestion> suggest(String cardName, int maxDistance, int maxSuggestions) {
+        List<Suggestion> suggestions = new ArrayList<>();
+        if (cardName == null) {
+            return suggestions;
+        }
+
+        // One row of the edit distance table for every letter down the trie, one after another in a single array,
+        // the first row is the empty name
+        char[] key = key(cardName).toCharArray();
+        int[] rows = new int[(maxLength + 1) * (key.length + 1)];
+        for (int i = 0; i <= key.length; i++) {
+            rows[i] = i;
+        }
+        visit(root, key, rows, 1, maxDistance, suggestions);
+
+        suggestions.sort((a, b) -> a.distance != b.distance ? Integer.compare(a.distance, b.distance)
+                : a.cardName.compareToIgnoreCase(b.cardName));
+        return suggestions.size() > maxSuggestions ? new ArrayList<>(suggestions.subList(0, maxSuggestions)) : suggestions;
+    }
+
+    /**
+     * Writes the suggestions for a card name, such as "Did you mean 'Bash' (2)?".
+     *
+     * @param cardName The unknown card name.
+     * @return The suggestions with their valid energy costs, or an empty string if no name is close enough.
+     */
+    public String didYouMean(String cardName) {
+        List<Suggestion> suggestions = suggest(cardName);
+        if (suggestions.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder text = new StringBuilder("Did you mean ");
+        for (int i = 0; i < suggestions.size(); i++) {
+            Suggestion suggestion = suggestions.get(i);
+            text.append(i == 0 ? "" : i == suggestions.size() - 1 ? " or " : ", ")
+                    .append('\'').append(suggestion.cardName).append('\'');
+            if (!suggestion.validEnergies.isEmpty()) {
+                text.append(" (").append(suggestion.validEnergies).append(')');
+            }
+        }
+        return text.append('?').toString();
+    }
+
+    // Adds the names below a node within the limit, depth is the number of letters of the children of the node
+    private void visit(Node node, char[] key, int[] rows, int depth, int maxDistance, List<Suggestion> suggestions) {
+        int width = key.length + 1;
+        int previous = (depth - 1) * width;
+        int row = depth * width;
+
+        // A value more than maxDistance away from the diagonal is always past the limit, so only the band around
+        // the diagonal is computed and the values just outside it are marked as past the limit
+        int outside = maxDistance + 1;
+        int from = Math.max(1, depth - maxDistance);
+        int to = Math.min(key.length, depth + maxDistance);
+        if (from > to) {
+            return;
+        }
+
+        for (int c = 0; c < node.letters.length; c++) {
+            char letter = node.letters[c];
+            rows[row] = depth;
+            rows[row + from - 1] = from == 1 ? depth : outside;
+            int rowMin = from == 1 ? depth : outside;
+            for (int i = from; i <= to; i++) {
+                int substitute = rows[previous + i - 1] + (key[i - 1] == letter ? 0 : 1);
+                int value = Math.min(substitute, Math.min(rows[previous + i], rows[row + i - 1]) + 1);
+                rows[row + i] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (to < key.length) {
+                rows[row + to + 1] = outside;
+            }
+
+            Node child = node.children[c];
+            int distance = rows[row + key.length];
+            if (child.name != null && to == key.length && distance <= maxDistance) {
+                suggestions.add(new Suggestion(child.name, distance, catalog.getValidEnergies(child.name)));
+            }
+
+            // Every longer name below this letter is at least as far as the closest value of the row
+            if (rowMin <= maxDistance && child.letters.length > 0) {
+                visit(child, key, rows, depth + 1, maxDistance, suggestions);
+            }
+        }
+    }
+
+    // Card names are compared ignoring case, the same as the catalog
+    private static String key(String cardName) {
+        return cardName.trim().toLowerCase(Locale.ROOT);
+    }
+}
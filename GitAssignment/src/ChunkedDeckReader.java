@@ -0,0 +1,256 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Memory-mapped parallel reader for very large deck files
+
+// The file is split into chunks that always end right after a newline, every chunk is mapped with FileChannel.map
+// and parsed on a fork-join pool, and the per-chunk aggregates are merged back in file order.
+// Only the first 1000 cards of a deck can be valid, so a chunk aggregate keeps its first cards with their costs
+// (or -1 for a card breaking a line rule) and the number of cards it read. Merging two neighbouring chunks keeps
+// the first cards of both together, so once every chunk is merged the first cards of the deck are known.
+// The card check is only applied to these cards after the merge, on the calling thread in file order, the same
+// cards the line by line reader checks. Every chunk records the errors of its lines in its own ValidationDiagnostics,
+// merged in file order with the chunks. This gives exactly the same totals, invalid card samples and diagnostic
+// counts as reading the whole file line by line, see DeckIngestor.readTotals. Without a card check the detailed
+// errors are also the same and in the same order. The errors of the card check are only recorded once the chunks
+// are merged, so they are listed after the line errors of the whole deck instead of between them.
+
+public class ChunkedDeckReader {
+
+    // Size of a chunk before it is extended to the end of its last line
+    protected static final int CHUNK_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Reads a deck file in parallel chunks into a streaming result.
+     *
+     * The total cost, card count, invalid card count, energy cost histogram and invalid card samples are the same
+     * as reading the deck with {@link DeckIngestor#readTotals(String, CardCheck, int)} below its parallel threshold.
+     * Lines are read as single byte characters, which accepts or rejects every line the same way as the
+     * line by line reader, since card names and costs are only valid in plain ASCII.
+     *
+     * @param file The path to the input file containing the card data.
+     * @param cardCheck An additional check applied to the trimmed card name and card cost, or `null` for none.
+     *                  It is only called on the calling thread, once the chunks are merged.
+     * @param invalidSampleLimit The number of invalid cards kept as samples.
+     * @param pool The fork-join pool parsing the chunks.
+     *
+     * @return The streaming result of the deck.
+     */
+    public static DeckResult read(String file, CardCheck cardCheck, int invalidSampleLimit, ForkJoinPool pool) {
+        DeckResult result = DeckResult.streaming(invalidSampleLimit);
+        ValidationDiagnostics diagnostics = result.getDiagnostics();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            int kept = DeckIngestor.MAX_CARDS + invalidSampleLimit;
+            Chunk deck = pool.invoke(new ChunkTask(channel, bounds, 0, bounds.length - 1, kept));
+            diagnostics.addAll(deck.diagnostics);
+
+            // Fold the first cards of the deck into the result in file order, checking the ones that can be valid
+            for (int i = 0; i < deck.keptCount; i++) {
+                String[] card = deck.cards[i];
+                if (i < DeckIngestor.MAX_CARDS && deck.costs[i] >= 0
+                        && (cardCheck == null || cardCheck.test(card[0], card[1], diagnostics))) {
+                    result.addValidCard(deck.costs[i]);
+                } else {
+                    result.addInvalidCard(result.keepsNextInvalidCard() ? card : null);
+                }
+            }
+
+            // Every card past them is invalid for being past the 1000 card limit and is never sampled
+            result.addInvalidCards(deck.cardCount - deck.keptCount);
+
+        // Handle I/O exceptions during file reading
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+
+        return result;
+    }
+
+    // Finds where every chunk starts, each chunk but the first starts right after a newline
+    private static long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+        bounds.add(0L);
+        long position = CHUNK_SIZE;
+        while (position < size) {
+            // Move forward to the byte after the next newline
+            long boundary = -1;
+            long scan = position;
+            while (boundary < 0 && scan < size) {
+                buffer.clear();
+                int read = channel.read(buffer, scan);
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        boundary = scan + i + 1;
+                        break;
+                    }
+                }
+                scan += read;
+            }
+            if (boundary < 0 || boundary >= size) {
+                break;
+            }
+            bounds.add(boundary);
+            position = boundary + CHUNK_SIZE;
+        }
+
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    // Aggregate of a range of chunks: its first cards, their costs, the number of cards and the errors of its lines
+    private static class Chunk {
+        private final byte[] costs;
+        private final String[][] cards;
+        private final ValidationDiagnostics diagnostics = new ValidationDiagnostics();
+        private int keptCount;
+        private int cardCount;
+
+        private Chunk(int kept) {
+            costs = new byte[kept];
+            cards = new String[kept][];
+        }
+
+        // Appends the chunk right after this one
+        private Chunk merge(Chunk next) {
+            int kept = Math.min(next.keptCount, costs.length - keptCount);
+            System.arraycopy(next.costs, 0, costs, keptCount, kept);
+            System.arraycopy(next.cards, 0, cards, keptCount, kept);
+            keptCount += kept;
+            cardCount += next.cardCount;
+            diagnostics.addAll(next.diagnostics);
+            return this;
+        }
+    }
+
+    // Parses a range of chunks, splitting it in half until a single chunk is left
+    private static class ChunkTask extends RecursiveTask<Chunk> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+        private final int kept;
+
+        private ChunkTask(FileChannel channel, long[] bounds, int from, int to, int kept) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.kept = kept;
+        }
+
+        @Override
+        protected Chunk compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                ChunkTask left = new ChunkTask(channel, bounds, from, middle, kept);
+                ChunkTask right = new ChunkTask(channel, bounds, middle, to, kept);
+                right.fork();
+                return left.compute().merge(right.join());
+            }
+
+            try {
+                return parse(channel.map(FileChannel.MapMode.READ_ONLY, bounds[from], bounds[to] - bounds[from]));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private Chunk parse(MappedByteBuffer buffer) {
+            Chunk chunk = new Chunk(kept);
+            ValidationDiagnostics diagnostics = chunk.diagnostics;
+            CardLineParser parser = new CardLineParser();
+            ByteLine line = new ByteLine(buffer);
+            int limit = buffer.limit();
+            int start = 0;
+
+            while (start < limit) {
+                // Lines end at \n, \r or \r\n, the same as BufferedReader.readLine
+                int end = start;
+                while (end < limit && buffer.get(end) != '\n' && buffer.get(end) != '\r') {
+                    end++;
+                }
+                line.set(start, end);
+                start = end + 1;
+                if (end < limit && buffer.get(end) == '\r' && start < limit && buffer.get(start) == '\n') {
+                    start++;
+                }
+
+                int status = parser.parse(line);
+                if (status == CardLineParser.BAD_FORMAT) {
+                    DeckIngestor.recordInvalidLine(line, diagnostics);
+                    continue;
+                }
+                if (status != CardLineParser.VALID) {
+                    DeckIngestor.recordInvalidCard(status, parser, diagnostics);
+                }
+
+                // Only the first cards of a chunk can still be valid or sampled once the chunks are merged
+                if (chunk.keptCount < chunk.costs.length) {
+                    chunk.costs[chunk.keptCount] = (byte) (status == CardLineParser.VALID ? parser.getCost() : -1);
+                    chunk.cards[chunk.keptCount++] = parser.toCard();
+                }
+                chunk.cardCount++;
+            }
+            return chunk;
+        }
+    }
+
+    // A line of a mapped chunk read as single byte characters, reused for every line of the chunk
+    private static class ByteLine implements CharSequence {
+        private final ByteBuffer buffer;
+        private int start;
+        private int end;
+
+        private ByteLine(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private void set(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            byte[] bytes = new byte[to - from];
+            buffer.get(start + from, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Writes the reports of many decks into a single PDF, one page per deck followed by an index of every deck
+
+// Every page of the document shares the same font, and each deck page is flushed to the file as soon as it is drawn,
+// so memory only grows by the index row of every deck. Decks can be added from several threads, one at a time.
+
+public class CombinedReport implements AutoCloseable {
+
+    // Columns of the index page, in points from the left edge
+    private static final float[] INDEX_COLUMNS = {PDFGenerator.MARGIN, 180, 300, 400};
+    private static final String[] INDEX_HEADERS = {"Deck ID", "Total Cost", "Status", "Page"};
+
+    private final String filePath;
+    private final PdfDocument pdfDoc;
+    private final PdfFont font;
+
+    // One row of the index for every deck, in the order the decks were added
+    private final List<String[]> index = new ArrayList<>();
+
+    /**
+     * Opens the combined report.
+     *
+     * @param filePath The file path where the PDF will be saved.
+     */
+    public CombinedReport(String filePath) throws IOException {
+        this.filePath = filePath;
+        this.pdfDoc = new PdfDocument(new PdfWriter(filePath));
+        this.font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+    }
+
+    /**
+     * Adds the report of a deck as its own page.
+     *
+     * A void deck gets a page containing only the word VOID, any other deck gets the same page as its
+     * single deck report with the deck ID, total cost and chart.
+     *
+     * @param deckId The identifier of the deck.
+     * @param deck The result of the deck.
+     * @param chartImage The PNG image of the energy cost histogram, not used for a void report.
+     */
+    public synchronized void addDeck(String deckId, DeckResult deck, byte[] chartImage) {
+        PdfPage page = pdfDoc.addNewPage(PageSize.A4);
+        PdfCanvas canvas = new PdfCanvas(page);
+
+        if (deck.isVoid()) {
+            showText(canvas, PDFGenerator.MARGIN, PDFGenerator.baseline(0), "VOID");
+        } else {
+            String[] values = {deckId, deckId, String.valueOf(deck.getTotalCost())};
+            for (int i = 0; i < values.length; i++) {
+                showText(canvas, PDFGenerator.MARGIN, PDFGenerator.baseline(i), PDFGenerator.LABELS[i] + values[i]);
+            }
+
+            // Add the chart image below the deck details straight from memory
+            if (chartImage != null) {
+                canvas.addImage(ImageDataFactory.create(chartImage), PDFGenerator.MARGIN,
+                        PDFGenerator.baseline(values.length) - PDFGenerator.CHART_HEIGHT, PDFGenerator.CHART_WIDTH, false);
+            } else {
+                System.out.println("Error: Could not add chart image to PDF.");
+            }
+        }
+
+        index.add(new String[]{deckId, deck.isVoid() ? "-" : String.valueOf(deck.getTotalCost()),
+                deck.isVoid() ? "VOID" : "Valid", String.valueOf(pdfDoc.getNumberOfPages())});
+
+        // Write the page to the file now, nothing on it changes anymore
+        canvas.release();
+        page.flush();
+    }
+
+    /**
+     * @return The number of decks added so far.
+     */
+    public synchronized int getDeckCount() {
+        return index.size();
+    }
+
+    /**
+     * Adds the index pages listing the deck ID, total cost, VOID status and page of every deck, and closes the report.
+     */
+    @Override
+    public synchronized void close() {
+        // The title and the column headers take the first three lines of every index page
+        int rowsPerPage = (int) ((PageSize.A4.getHeight() - 2 * PDFGenerator.MARGIN) / PDFGenerator.LINE_HEIGHT) - 3;
+
+        int first = 0;
+        do {
+            PdfPage page = pdfDoc.addNewPage(PageSize.A4);
+            PdfCanvas canvas = new PdfCanvas(page);
+
+            showText(canvas, PDFGenerator.MARGIN, PDFGenerator.baseline(0), "Deck Index: " + index.size() + " decks");
+            showRow(canvas, 2, INDEX_HEADERS);
+            for (int row = first; row < Math.min(first + rowsPerPage, index.size()); row++) {
+                showRow(canvas, row - first + 3, index.get(row));
+            }
+
+            canvas.release();
+            page.flush();
+            first += rowsPerPage;
+        } while (first < index.size());
+
+        pdfDoc.close();
+        System.out.println("Combined report of " + index.size() + " decks successfully generated " + filePath);
+    }
+
+    private void showRow(PdfCanvas canvas, int line, String[] cells) {
+        for (int i = 0; i < cells.length; i++) {
+            showText(canvas, INDEX_COLUMNS[i], PDFGenerator.baseline(line), cells[i]);
+        }
+    }
+
+    private void showText(PdfCanvas canvas, float x, float y, String text) {
+        canvas.beginText().setFontAndSize(font, PDFGenerator.FONT_SIZE).moveText(x, y).showText(text).endText();
+    }
+}
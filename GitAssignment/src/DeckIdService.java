@@ -0,0 +1,124 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+// Gives out the 9-digit deck IDs used in report file names, SpireDeck_<id>.pdf
+
+// A sequential ID is a sequence number taken from a shared atomic counter, so IDs never repeat within a run and
+// threads never wait on a lock. The sequence starts at a random point of every run, anywhere among the 9 digit IDs.
+// Report servers running side by side can be given a node prefix with the "deckIdNode" system property, the first
+// digit of every ID, which keeps their IDs apart and leaves them an 8 digit sequence number.
+
+// Every ID is taken from the counter on its own, rather than threads keeping blocks of numbers, as the report
+// server runs every request on a new virtual thread and a block per thread would waste nearly all of its numbers.
+
+// A content ID is a hash of the bytes of the deck file, so the same deck always gets the same ID and its report
+// can be reused instead of written again.
+
+public class DeckIdService {
+
+    // Deck IDs are always this many digits
+    public static final int ID_DIGITS = 9;
+
+    // Number of IDs with 9 digits
+    private static final long ID_LIMIT = 1_000_000_000L;
+
+    // Number of sequence numbers after a node prefix
+    private static final long SEQUENCE_LIMIT = ID_LIMIT / 10;
+
+    private final long node;
+    private final long sequenceLimit;
+    private final AtomicLong next;
+
+    // Holder class so the shared service is only created the first time an ID is needed
+    private static class Holder {
+        private static final DeckIdService INSTANCE = create(Integer.getInteger("deckIdNode"));
+
+        private static DeckIdService create(Integer node) {
+            return node == null ? new DeckIdService(ThreadLocalRandom.current().nextLong(ID_LIMIT))
+                    : new DeckIdService(node, ThreadLocalRandom.current().nextLong(SEQUENCE_LIMIT));
+        }
+    }
+
+    /**
+     * Creates a service giving out sequential IDs from every 9-digit ID, without a node prefix.
+     *
+     * @param start The first ID.
+     */
+    public DeckIdService(long start) {
+        this.node = 0;
+        this.sequenceLimit = ID_LIMIT;
+        this.next = new AtomicLong(start);
+    }
+
+    /**
+     * Creates a service giving out sequential IDs.
+     *
+     * @param node The node prefix, the first digit of every ID, from 0 to 9.
+     * @param start The first sequence number.
+     */
+    public DeckIdService(int node, long start) {
+        if (node < 0 || node > 9) {
+            throw new IllegalArgumentException("Deck ID node must be between 0 and 9: " + node);
+        }
+        this.node = node * SEQUENCE_LIMIT;
+        this.sequenceLimit = SEQUENCE_LIMIT;
+        this.next = new AtomicLong(start);
+    }
+
+    /**
+     * Returns the shared service, using the node prefix of the "deckIdNode" system property, if it is set.
+     *
+     * @return The shared deck ID service.
+     */
+    public static DeckIdService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Gives out the next sequential ID. No two calls on the same service give the same ID
+     * until 1,000,000,000 IDs have been given out, or 100,000,000 with a node prefix.
+     *
+     * @return A 9-digit deck ID.
+     */
+    public String nextId() {
+        return format(node + next.getAndIncrement() % sequenceLimit);
+    }
+
+    /**
+     * Hashes the content of a deck file into an ID, so identical deck files get the same ID.
+     * Different decks can share an ID, about once in every billion pairs of decks, so the ID only names a report
+     * and decks are told apart by {@link ReportCache#contentHash(String)}.
+     *
+     * @param file The path to the deck file.
+     * @return A 9-digit deck ID.
+     */
+    public static String contentId(String file) throws IOException {
+        CRC32C checksum = new CRC32C();
+        byte[] buffer = new byte[64 * 1024];
+
+        try (InputStream in = Files.newInputStream(Paths.get(file))) {
+            int read = in.read(buffer);
+            while (read >= 0) {
+                checksum.update(buffer, 0, read);
+                read = in.read(buffer);
+            }
+        }
+
+        return format(checksum.getValue() % ID_LIMIT);
+    }
+
+    // Writes the ID with leading zeros
+    private static String format(long id) {
+        char[] digits = new char[ID_DIGITS];
+        for (int i = ID_DIGITS - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + id % 10);
+            id /= 10;
+        }
+        return new String(digits);
+    }
+}
@@ -0,0 +1,235 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+// Single pass ingestion stage for a deck file
+// Each line is read, tokenized and validated exactly once, producing the invalid card samples,
+// card count, energy cost histogram and total energy cost together in one DeckResult
+
+public class DeckIngestor {
+
+    // A deck handles up to 1000 cards, any card past this point is treated as invalid
+    protected static final int MAX_CARDS = 1000;
+
+    // Text decks larger than this are read in parallel chunks when every line is read
+    protected static final long PARALLEL_THRESHOLD = 4L * ChunkedDeckReader.CHUNK_SIZE;
+
+    /**
+     * Reads the deck for its report, keeping running totals and stopping as soon as the report is void.
+     *
+     * The report of a deck is void at its 11th invalid card or its 1000th card, so nothing past that card is read,
+     * validated or counted and the result is marked as stopped early. A deck that is not void is read to the end.
+     *
+     * Each line is expected to have the format: "CardName:CardCost".
+     * Lines are checked by the {@link CardLineParser}, and cards that pass are given to the card check, if any.
+     * A file ending with {@link BinaryDeck#EXTENSION} is read as a binary deck instead.
+     * Valid cards add their cost to the total, while invalid cards are counted and the first few kept as samples.
+     * Lines without exactly two elements are recorded in the diagnostics and skipped.
+     *
+     * @param file The path to the input file containing the card data.
+     * @param cardCheck An additional check applied to the trimmed card name and card cost, or `null` for none.
+     * @param invalidSampleLimit The number of invalid cards kept as samples.
+     *
+     * @return The streaming result of the deck.
+     */
+    public static DeckResult readForReport(String file, CardCheck cardCheck, int invalidSampleLimit) {
+        return ingest(file, cardCheck, DeckResult.streaming(invalidSampleLimit), true);
+    }
+
+    /**
+     * Reads a UTF-8 text deck for its report from any source, such as the body of a request to the {@link ReportServer},
+     * the same way as {@link #readForReport(String, CardCheck, int)}.
+     *
+     * @param deck The text of the deck, one "CardName:CardCost" card per line. It is not closed.
+     * @param cardCheck An additional check applied to the trimmed card name and card cost, or `null` for none.
+     * @param invalidSampleLimit The number of invalid cards kept as samples.
+     *
+     * @return The streaming result of the deck.
+     */
+    public static DeckResult readForReport(InputStream deck, CardCheck cardCheck, int invalidSampleLimit) throws IOException {
+        ReportStageEvent event = ReportMetrics.begin(ReportMetrics.Stage.READ);
+        DeckResult result = DeckResult.streaming(invalidSampleLimit);
+        CountingInputStream in = new CountingInputStream(deck);
+        ingest(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), cardCheck, result, true);
+        ReportMetrics.endRead(event, result, in.count);
+        return result;
+    }
+
+    /**
+     * Reads every line of the deck for its totals, carrying on past the card that makes the report void,
+     * for looking into very large deck dumps instead of writing their report.
+     *
+     * Text decks larger than {@link #PARALLEL_THRESHOLD} bytes are memory-mapped and parsed in parallel,
+     * see {@link ChunkedDeckReader#read(String, CardCheck, int, ForkJoinPool)}, smaller decks and binary decks
+     * are read line by line. Both give the same totals, invalid card samples and diagnostic counts.
+     *
+     * @param file The path to the input file containing the card data.
+     * @param cardCheck An additional check applied to the trimmed card name and card cost, or `null` for none.
+     * @param invalidSampleLimit The number of invalid cards kept as samples.
+     *
+     * @return The streaming result of the whole deck.
+     */
+    public static DeckResult readTotals(String file, CardCheck cardCheck, int invalidSampleLimit) {
+        long length = new File(file).length();
+        if (!BinaryDeck.isBinaryDeck(file) && length > PARALLEL_THRESHOLD) {
+            ReportStageEvent event = ReportMetrics.begin(ReportMetrics.Stage.READ);
+            DeckResult result = ChunkedDeckReader.read(file, cardCheck, invalidSampleLimit, ForkJoinPool.commonPool());
+            ReportMetrics.endRead(event, result, length);
+            return result;
+        }
+        return ingest(file, cardCheck, DeckResult.streaming(invalidSampleLimit), false);
+    }
+
+    private static DeckResult ingest(String file, CardCheck cardCheck, DeckResult result, boolean stopWhenVoid) {
+        ReportStageEvent event = ReportMetrics.begin(ReportMetrics.Stage.READ);
+        long bytesRead = 0;
+
+        // Archived decks are already parsed, see BinaryDeck
+        // Their checksum is checked before any card is read, which reads the whole file
+        if (BinaryDeck.isBinaryDeck(file)) {
+            result = BinaryDeck.read(file, cardCheck, result, stopWhenVoid);
+            bytesRead = new File(file).length();
+        } else {
+            // Only the bytes read before a void report stops reading are counted
+            try (CountingInputStream in = new CountingInputStream(new FileInputStream(file));
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(in, Charset.defaultCharset()))) {
+                ingest(reader, cardCheck, result, stopWhenVoid);
+                bytesRead = in.count;
+
+            // Handle I/O exceptions during file reading
+            } catch (IOException e) {
+                System.err.println(e);
+            }
+        }
+
+        ReportMetrics.endRead(event, result, bytesRead);
+        return result;
+    }
+
+    /**
+     * Reads every line of a text deck into a result, on top of the cards the result already counted.
+     *
+     * @param reader The lines of the deck.
+     * @param cardCheck An additional check applied to the trimmed card name and card cost, or `null` for none.
+     * @param result The result the cards are added to.
+     * @param stopWhenVoid `true` to stop reading as soon as the report is void.
+     */
+    static void ingest(BufferedReader reader, CardCheck cardCheck, DeckResult result,
+                               boolean stopWhenVoid) throws IOException {
+        CardLineParser parser = new CardLineParser();
+        ValidationDiagnostics diagnostics = result.getDiagnostics();
+        String line = reader.readLine();
+
+        // Loop through each line in the file
+        while (line != null) {
+            int status = parser.parse(line);
+
+            // Check if line is correctly formatted with 2 elements
+            if (status == CardLineParser.BAD_FORMAT) {
+                recordInvalidLine(line, diagnostics);
+            } else {
+                boolean valid = status == CardLineParser.VALID;
+                if (!valid) {
+                    recordInvalidCard(status, parser, diagnostics);
+                }
+
+                // Cards past the limit are invalid no matter their name or cost
+                if (valid && result.getCardCount() < MAX_CARDS
+                        && (cardCheck == null || cardCheck.test(parser.getCardName(), parser.getCardCost(), diagnostics))) {
+                    result.addValidCard(parser.getCost());
+                } else {
+                    // Add invalid cards to list for void report
+                    result.addInvalidCard(result.keepsNextInvalidCard() ? parser.toCard() : null);
+                }
+
+                // Nothing past this card can change a void report
+                if (stopWhenVoid && result.isVoid()) {
+                    result.stopEarly();
+                    break;
+                }
+            }
+
+            line = reader.readLine();
+        }
+    }
+
+    /**
+     * Records a line that is not a card name and cost separated by a colon.
+     *
+     * @param line The line.
+     * @param diagnostics The collector the error is recorded in.
+     */
+    static void recordInvalidLine(CharSequence line, ValidationDiagnostics diagnostics) {
+        if (diagnostics.isFull()) {
+            diagnostics.count(ValidationDiagnostics.ErrorType.BAD_FORMAT);
+        } else {
+            diagnostics.record(ValidationDiagnostics.ErrorType.BAD_FORMAT, line.toString(), null);
+        }
+    }
+
+    /**
+     * Records why a card failed the line rules. The card name and cost Strings are only built
+     * while the collector still keeps the details of its errors.
+     *
+     * @param status The result of parsing the line, see {@link CardLineParser}.
+     * @param parser The parser holding the card.
+     * @param diagnostics The collector the error is recorded in.
+     */
+    static void recordInvalidCard(int status, CardLineParser parser, ValidationDiagnostics diagnostics) {
+        ValidationDiagnostics.ErrorType type;
+        switch (status) {
+            case CardLineParser.EMPTY_NAME:
+                type = ValidationDiagnostics.ErrorType.EMPTY_NAME;
+                break;
+            case CardLineParser.BAD_NAME:
+                type = ValidationDiagnostics.ErrorType.BAD_NAME;
+                break;
+            case CardLineParser.BAD_COST_FORMAT:
+                type = ValidationDiagnostics.ErrorType.BAD_COST;
+                break;
+            default:
+                type = ValidationDiagnostics.ErrorType.COST_RANGE;
+                break;
+        }
+
+        if (diagnostics.isFull()) {
+            diagnostics.count(type);
+        } else {
+            diagnostics.record(type, parser.getCardName(), parser.getCardCost());
+        }
+    }
+
+    // Counts the bytes read from a deck, including what the reader buffers ahead of the line it is on
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Journal of the deck files already reported, so a DeckWatcher that restarts never renders a finished deck again
+
+// A deck file is finished when its size and last modified time are the same as when its report was written.
+// Every report adds a line to the end of the journal, "size<TAB>modified<TAB>report<TAB>deck file", and when
+// a deck is reported more than once its last line counts. Once the journal has at least 1000 lines and twice as
+// many lines as decks, it is rewritten with only the last line of every deck, when it is opened or as it grows.
+// A last line without a newline was cut short by a crash. It is skipped, and the journal is rewritten without it
+// before the next line is added, so the next line is never glued onto it.
+
+public class DeckJournal {
+
+    private static final String HEADER = "# DeckJournal 1";
+
+    // Lines a journal can have before it is rewritten, at least, or twice the number of decks in it
+    private static final int COMPACT_LINES = 1000;
+
+    private final Path file;
+
+    // Lines in the journal file, only used while holding the lock of the journal
+    private int lines;
+
+    // Set while the journal file does not end with a newline, only used while holding the lock of the journal
+    private boolean unterminated;
+
+    // Last entry of every deck file by its absolute path
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * A reported deck file.
+     */
+    static final class Entry {
+        final long size;
+        final long modified;
+        final String report;
+
+        Entry(long size, long modified, String report) {
+            this.size = size;
+            this.modified = modified;
+            this.report = report;
+        }
+    }
+
+    /**
+     * Opens a journal, loading its entries if the file exists.
+     *
+     * @param file The path to the journal file.
+     */
+    public DeckJournal(Path file) {
+        this.file = file;
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            // A journal of another format is ignored, so every deck is reported again
+            String header = reader.readLine();
+            if (header == null || !header.equals(HEADER)) {
+                return;
+            }
+
+            unterminated = !endsWithNewline(file);
+            String line = reader.readLine();
+            while (line != null) {
+                String next = reader.readLine();
+                String[] fields = line.split("\t", 4);
+                // A line cut short by a crash is skipped, even if the cut left all of its fields
+                if (fields.length == 4 && (next != null || !unterminated)) {
+                    entries.put(fields[3], new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2]));
+                }
+                lines++;
+                line = next;
+            }
+
+        // Handle I/O exceptions during file reading, the journal then starts empty
+        } catch (IOException | NumberFormatException e) {
+            System.err.println(e);
+            return;
+        }
+
+        if (isOutgrown()) {
+            compact();
+        }
+    }
+
+    /**
+     * Checks if the report of a deck file was written since the file last changed.
+     *
+     * @param deckFile The path to the deck file.
+     * @param size The size of the deck file in bytes.
+     * @param modified The last modified time of the deck file in milliseconds.
+     *
+     * @return `true` if the deck is already reported, `false` otherwise.
+     */
+    public boolean isReported(Path deckFile, long size, long modified) {
+        Entry entry = entries.get(key(deckFile));
+        return entry != null && entry.size == size && entry.modified == modified;
+    }
+
+    /**
+     * Records the report of a deck file at the end of the journal.
+     *
+     * @param deckFile The path to the deck file.
+     * @param size The size of the deck file in bytes when it was read.
+     * @param modified The last modified time of the deck file in milliseconds when it was read.
+     * @param report The file path of the report.
+     */
+    public synchronized void record(Path deckFile, long size, long modified, String report) {
+        String key = key(deckFile);
+        entries.put(key, new Entry(size, modified, report));
+
+        if (unterminated || isOutgrown()) {
+            compact();
+            return;
+        }
+
+        boolean created = !Files.exists(file);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (created) {
+                writer.write(HEADER);
+                writer.newLine();
+                lines = 0;
+            }
+            writeEntry(writer, key, entries.get(key));
+            lines++;
+
+        // Handle I/O exceptions during file writing, the deck is then reported again after a restart
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    // Rewrites the journal with only the last entry of every deck file
+    // The new journal is written next to the old one and moved over it, so a crash keeps one of them whole
+    private synchronized void compact() {
+        Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            int written = 0;
+            try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    writeEntry(writer, entry.getKey(), entry.getValue());
+                    written++;
+                }
+            }
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lines = written;
+            unterminated = false;
+
+        // Handle I/O exceptions during file writing, the old journal is then kept as it is
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    // Lines of decks reported again are rewritten once they outnumber the decks and the journal has grown
+    private boolean isOutgrown() {
+        return lines >= Math.max(COMPACT_LINES, entries.size() * 2);
+    }
+
+    private static boolean endsWithNewline(Path file) throws IOException {
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            if (channel.size() == 0) {
+                return true;
+            }
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.position(channel.size() - 1).read(last);
+            return last.get(0) == '\n' || last.get(0) == '\r';
+        }
+    }
+
+    private static void writeEntry(BufferedWriter writer, String key, Entry entry) throws IOException {
+        writer.write(entry.size + "\t" + entry.modified + "\t" + entry.report + "\t" + key);
+        writer.newLine();
+    }
+
+    private static String key(Path deckFile) {
+        return deckFile.toAbsolutePath().normalize().toString();
+    }
+}
@@ -0,0 +1,195 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+/**
+ * Holds everything a single pass over a deck file produces: the invalid card samples, the number of cards read,
+ * the total energy cost of the valid cards and how many valid cards have each energy cost.
+ *
+ * Because every value is filled in by the same pass, the card counts and the total cost always agree.
+ *
+ * A result only keeps the running totals and the first few invalid cards as samples,
+ * so its memory stays the same whatever the size of the deck.
+ *
+ * The report of a deck is void once it has more than 10 invalid cards or more than 999 cards. This is checked
+ * after every card, so the ingestion can stop reading a deck as soon as its report is known to be void.
+ */
+public class DeckResult {
+
+    // A deck with more invalid cards or at least this many cards has a void report
+    protected static final int MAX_INVALID_CARDS = 10;
+    protected static final int VOID_CARD_COUNT = 1000;
+
+    private final ArrayList<String[]> invalidCardList = new ArrayList<>();
+
+    // Number of valid cards for each energy cost from 0 to 6
+    private final int[] costCounts = new int[7];
+
+    private int cardCount;
+    private int invalidCount;
+    private double totalCost;
+    private boolean stoppedEarly;
+
+    // Validation errors of the deck
+    private final ValidationDiagnostics diagnostics = new ValidationDiagnostics();
+
+    // At most this many invalid cards are kept as samples
+    private final int invalidSampleLimit;
+
+    private DeckResult(int invalidSampleLimit) {
+        this.invalidSampleLimit = invalidSampleLimit;
+    }
+
+    /**
+     * Creates a result that only keeps running totals, for decks that may be larger than memory.
+     *
+     * @param invalidSampleLimit The number of invalid cards kept as samples for diagnostics.
+     * @return The streaming result.
+     */
+    public static DeckResult streaming(int invalidSampleLimit) {
+        return new DeckResult(invalidSampleLimit);
+    }
+
+    /**
+     * @return `true` if the next invalid card will be kept in the invalid card list.
+     */
+    boolean keepsNextInvalidCard() {
+        return invalidCardList.size() < invalidSampleLimit;
+    }
+
+    /**
+     * Records a valid card and adds its cost to the running total.
+     *
+     * @param cost The parsed energy cost of the card.
+     */
+    void addValidCard(int cost) {
+        costCounts[cost]++;
+        totalCost += cost;
+        cardCount++;
+    }
+
+    /**
+     * Records an invalid card for the void report.
+     *
+     * @param card The card as a String array containing the card name (index 0) and card cost (index 1),
+     *             or `null` once the result has all of its samples.
+     */
+    void addInvalidCard(String[] card) {
+        if (keepsNextInvalidCard()) {
+            invalidCardList.add(card);
+        }
+        invalidCount++;
+        cardCount++;
+    }
+
+    /**
+     * Records invalid cards that are only counted, never kept as samples.
+     *
+     * @param count The number of invalid cards.
+     */
+    void addInvalidCards(int count) {
+        invalidCount += count;
+        cardCount += count;
+    }
+
+    /**
+     * Starts the totals from the cards of an earlier read of the same deck, so only the cards after them are read.
+     *
+     * @param cardCount The number of correctly formatted lines already read.
+     * @param invalidCount The number of invalid cards already read.
+     * @param totalCost The total energy cost of the valid cards already read.
+     * @param costCounts The number of valid cards already read for each energy cost.
+     */
+    void restoreTotals(int cardCount, int invalidCount, double totalCost, int[] costCounts) {
+        this.cardCount = cardCount;
+        this.invalidCount = invalidCount;
+        this.totalCost = totalCost;
+        System.arraycopy(costCounts, 0, this.costCounts, 0, this.costCounts.length);
+    }
+
+    /**
+     * Marks that the deck was not read to the end because its report was already void.
+     */
+    void stopEarly() {
+        stoppedEarly = true;
+    }
+
+    /**
+     * Checks if the report of the deck is void, which happens when there are more than 10 invalid cards
+     * or the deck has more than 999 cards.
+     *
+     * @return `true` if the report is void, `false` otherwise.
+     */
+    public boolean isVoid() {
+        return invalidCount > MAX_INVALID_CARDS || cardCount >= VOID_CARD_COUNT;
+    }
+
+    /**
+     * @return `true` if reading stopped as soon as the report was void, in which case the totals only cover
+     *         the cards read up to that point.
+     */
+    public boolean isStoppedEarly() {
+        return stoppedEarly;
+    }
+
+    /**
+     * @return The validation errors of the deck, counted by type with the details of the first few.
+     */
+    public ValidationDiagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * @return The list of invalid cards, where each entry contains the card name (index 0) and card cost (index 1).
+     *         Only the first invalid cards up to the sample limit.
+     */
+    public ArrayList<String[]> getInvalidCardList() {
+        return invalidCardList;
+    }
+
+    /**
+     * @return The number of invalid cards in the deck, including cards that were not kept as samples.
+     */
+    public int getInvalidCount() {
+        return invalidCount;
+    }
+
+    /**
+     * @return The number of valid cards for each energy cost, where index i holds the count of cards costing i energy.
+     */
+    public int[] getCostCounts() {
+        return costCounts.clone();
+    }
+
+    /**
+     * @return The number of correctly formatted lines read from the deck, valid or not.
+     */
+    public int getCardCount() {
+        return cardCount;
+    }
+
+    /**
+     * @return The total energy cost of all valid cards in the deck.
+     */
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Prints the card count, invalid card count, total cost and energy cost histogram of the deck with a single write.
+     *
+     * @param title The name of the deck.
+     * @param out The stream the totals are printed to.
+     */
+    public void printTotals(String title, PrintStream out) {
+        StringBuilder totals = new StringBuilder();
+        totals.append("Totals for ").append(title).append(": ").append(cardCount).append(" cards, ")
+                .append(invalidCount).append(" invalid, total cost ").append(totalCost)
+                .append(isVoid() ? " (VOID)" : "").append(System.lineSeparator());
+
+        for (int cost = 0; cost < costCounts.length; cost++) {
+            totals.append("  Cost ").append(cost).append(": ").append(costCounts[cost]).append(System.lineSeparator());
+        }
+
+        out.print(totals);
+    }
+}
@@ -0,0 +1,234 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Watches a spool directory and reports every deck file as soon as it is dropped in or changed
+
+// The catalog and the chart and PDF code stay loaded between decks, so a report only takes the time of the deck
+// itself. A deck file is only read once nothing has written to it for the debounce time and its size and last
+// modified time have stopped changing, so a deck that is still being copied in is never reported half written.
+// Every report written is recorded in a DeckJournal, and decks already in the journal are skipped after a restart.
+// A writer that can pause for longer than the debounce time should write under another name, such as deck.txt.part,
+// and rename the file once it is complete.
+
+// Usage: java DeckWatcher <spool directory> [output folder] [--extra-credit] [--journal file] [--debounce ms]
+//                         [--threads N] [--metrics file]
+
+public class DeckWatcher {
+
+    // Time without writes before a deck file is read, when no debounce time is given
+    protected static final long DEFAULT_DEBOUNCE_MS = 100;
+
+    // Name of the journal in the spool directory, when no journal is given
+    protected static final String DEFAULT_JOURNAL = "SpireDeck.journal";
+
+    // Reports only need the totals of a deck, so decks are streamed keeping this many invalid cards as samples
+    // and reading stops as soon as a report is void
+    private static final int INVALID_SAMPLES = 20;
+
+    // The same deck files as a batch of a directory, see BatchReportGenerator.findDeckFiles
+    private static final PathMatcher DECK_FILES = FileSystems.getDefault().getPathMatcher("glob:*.{txt,deck}");
+
+    private final Path directory;
+    private final String folder;
+    private final CardCheck cardCheck;
+    private final DeckJournal journal;
+    private final long debounceNanos;
+    private final ExecutorService renderers;
+
+    // Deck files waiting for writes to stop: time of the last write, size and last modified time
+    // Only used by the watching thread
+    private final Map<Path, long[]> pending = new HashMap<>();
+
+    // Deck files being reported right now
+    private final Set<Path> reporting = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a watcher.
+     *
+     * @param directory The spool directory deck files are dropped in.
+     * @param folder The folder the reports are written to, ending with a path separator.
+     * @param cardCheck An additional check applied to every card, or `null` for none.
+     * @param journal The journal of the deck files already reported.
+     * @param debounceMs The time without writes before a deck file is read, in milliseconds.
+     * @param threads The number of decks reported at the same time.
+     */
+    public DeckWatcher(Path directory, String folder, CardCheck cardCheck, DeckJournal journal, long debounceMs, int threads) {
+        this.directory = directory;
+        this.folder = folder;
+        this.cardCheck = cardCheck;
+        this.journal = journal;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMs);
+        this.renderers = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Reports the decks already in the spool directory, then every deck file created or changed in it
+     * until the thread is interrupted or the directory is removed.
+     */
+    public void run() throws IOException, InterruptedException {
+        try (WatchService watcher = directory.getFileSystem().newWatchService()) {
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+            // Decks dropped in while the watcher was not running, registered first so none are missed
+            scanDirectory();
+
+            while (true) {
+                WatchKey key = pending.isEmpty() ? watcher.take()
+                        : watcher.poll(Math.max(debounceNanos / 4, 1), TimeUnit.NANOSECONDS);
+
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        // Too many changes at once, some events were lost
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            scanDirectory();
+                        } else {
+                            schedule(directory.resolve((Path) event.context()));
+                        }
+                    }
+
+                    if (!key.reset()) {
+                        System.err.println("Stopped watching " + directory + ", the directory is no longer accessible");
+                        return;
+                    }
+                }
+
+                reportSettledDecks();
+            }
+        } finally {
+            renderers.shutdown();
+        }
+    }
+
+    private void scanDirectory() throws IOException {
+        for (Path deckFile : BatchReportGenerator.findDeckFiles(directory.toString())) {
+            schedule(deckFile);
+        }
+    }
+
+    // Waits for the debounce time from now before reading the deck file
+    private void schedule(Path deckFile) {
+        if (DECK_FILES.matches(deckFile.getFileName())) {
+            File file = deckFile.toFile();
+            pending.put(deckFile, new long[]{System.nanoTime(), file.length(), file.lastModified()});
+        }
+    }
+
+    // Reports every pending deck file that nothing has written to for the debounce time
+    private void reportSettledDecks() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, long[]>> decks = pending.entrySet().iterator();
+
+        while (decks.hasNext()) {
+            Map.Entry<Path, long[]> entry = decks.next();
+            Path deckFile = entry.getKey();
+            long[] seen = entry.getValue();
+            if (now - seen[0] < debounceNanos) {
+                continue;
+            }
+
+            File file = deckFile.toFile();
+            long size = file.length();
+            long modified = file.lastModified();
+
+            // Removed before it settled
+            if (!file.isFile()) {
+                decks.remove();
+
+            // Still being written without a change event yet, or still being reported from an earlier version
+            } else if (size != seen[1] || modified != seen[2] || reporting.contains(deckFile)) {
+                seen[0] = now;
+                seen[1] = size;
+                seen[2] = modified;
+
+            } else {
+                decks.remove();
+                if (!journal.isReported(deckFile, size, modified)) {
+                    reporting.add(deckFile);
+                    renderers.execute(() -> report(deckFile, size, modified));
+                }
+            }
+        }
+    }
+
+    private void report(Path deckFile, long size, long modified) {
+        try {
+            String file = deckFile.toString();
+            DeckResult deck = DeckIngestor.readForReport(file, cardCheck, INVALID_SAMPLES);
+            deck.getDiagnostics().printSummary(file, System.err);
+
+            String report = ReportGenerator.generateReport(folder, ReportGenerator.generateFileId(file), deck);
+
+            // A report that could not be written is left out of the journal, so the deck is tried again after a restart
+            if (report != null && new File(report).length() > 0) {
+                journal.record(deckFile, size, modified, report);
+            } else {
+                System.err.println("Could not report " + deckFile + ", it is tried again after a restart");
+            }
+
+        } catch (RuntimeException e) {
+            System.err.println("Could not report " + deckFile + ": " + e);
+        } finally {
+            reporting.remove(deckFile);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // Reports are rendered without a screen
+        System.setProperty("java.awt.headless", "true");
+
+        String location = null;
+        String folder = "." + File.separator;
+        CardCheck cardCheck = null;
+        Path journalFile = null;
+        long debounceMs = DEFAULT_DEBOUNCE_MS;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--extra-credit")) {
+                cardCheck = MainExtraCredit::validCardChecker;
+            } else if (args[i].equals("--journal")) {
+                journalFile = Paths.get(args[++i]);
+            } else if (args[i].equals("--debounce")) {
+                debounceMs = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--metrics")) {
+                ReportMetrics.dumpAtExit(Paths.get(args[++i]));
+            } else if (location == null) {
+                location = args[i];
+            } else {
+                folder = args[i].endsWith(File.separator) ? args[i] : args[i] + File.separator;
+            }
+        }
+
+        if (location == null || !Files.isDirectory(Paths.get(location))) {
+            System.err.println("Usage: java DeckWatcher <spool directory> [output folder] [--extra-credit] [--journal file]"
+                    + " [--debounce ms] [--threads N] [--metrics file]");
+            return;
+        }
+
+        Path directory = Paths.get(location);
+        DeckJournal journal = new DeckJournal(journalFile != null ? journalFile : directory.resolve(DEFAULT_JOURNAL));
+
+        ReportGenerator.warmUp();
+        System.out.println("Watching " + directory + " for deck files");
+        new DeckWatcher(directory, folder, cardCheck, journal, debounceMs, threads).run();
+    }
+}
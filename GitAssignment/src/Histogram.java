@@ -34,9 +34,7 @@
  */
 
 
-import java.util.ArrayList;
-
-import java.io.File;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 import org.jfree.chart.ChartUtils;
@@ -44,9 +42,7 @@ import org.jfree.chart.ChartUtils;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
-import org.jfree.chart.axis.CategoryAxis;
-import org.jfree.chart.axis.CategoryLabelPositions;
-import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.plot.PlotOrientation;
 
@@ -64,13 +60,14 @@ public class Histogram extends ApplicationFrame {
     /**
      * Creates a new demo.
      *
+     * The chart is built by the caller so the same chart is shown and saved for the report,
+     * and so the chart can be built without a frame when running headless.
+     *
      * @param title the frame title.
+     * @param chart the chart to display.
      */
-    protected Histogram(String title, ArrayList<String[]> data) {
+    protected Histogram(String title, JFreeChart chart) {
         super(title);
-        //IntervalXYDataset dataset = createDataset();
-        CategoryDataset dataset = createDataset(data);
-        JFreeChart chart = createChart(dataset);
         ChartPanel chartPanel = new ChartPanel(chart);
         chartPanel.setPreferredSize(new java.awt.Dimension(500, 270));
         chartPanel.setMouseZoomable(true, false);
@@ -78,17 +75,18 @@ public class Histogram extends ApplicationFrame {
     }
 
     /**
-     * Creates a sample {@link HistogramDataset}.
+     * Creates the energy cost histogram dataset of a deck.
+     *
+     * There is one bar for each energy cost from 0 to 6, so the dataset has the same size whatever the size of the deck.
      *
+     * @param costCounts the number of valid cards for each energy cost, where index i holds the count of cards costing i energy.
      * @return The dataset.
      */
-    protected CategoryDataset createDataset(ArrayList<String[]> data) {
+    protected static CategoryDataset createDataset(int[] costCounts) {
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
 
-        for (String[] entry : data) {
-            String cardName = entry[0];
-            Integer cardCost = Integer.parseInt(entry[1]);
-            dataset.addValue(cardCost, "Frequency", cardName);
+        for (int cost = 0; cost < costCounts.length; cost++) {
+            dataset.addValue(costCounts[cost], "Frequency", Integer.toString(cost));
         }
         return dataset;
     }
@@ -99,11 +97,12 @@ public class Histogram extends ApplicationFrame {
      * @param dataset a dataset.
      * @return The chart.
      */
-    protected JFreeChart createChart(CategoryDataset dataset) {
+    protected static JFreeChart createChart(CategoryDataset dataset) {
+        ReportStageEvent event = ReportMetrics.begin(ReportMetrics.Stage.CHART);
         JFreeChart chart = ChartFactory.createBarChart(
                 "Histogram ",      // Chart title
-                "CardName",            // X-axis Label
-                "Energy",                // Y-axis Label
+                "Energy Cost",         // X-axis Label
+                "Cards",                 // Y-axis Label
                 dataset,               // Dataset
                 PlotOrientation.VERTICAL, // Plot Orientation
                 true,                  // Include legend
@@ -111,26 +110,14 @@ public class Histogram extends ApplicationFrame {
                 false                  // URLs
         );
 
-        // Customize the plot
-        //chart.getPlot().setForegroundAlpha(0.75f);
-
         // Customize the plot
         CategoryPlot plot = (CategoryPlot) chart.getPlot();
 
-        // Customize the x-axis to prevent truncation
-        CategoryAxis xAxis = plot.getDomainAxis();
+        // Card counts are whole numbers, so only use whole number ticks on the y-axis
+        NumberAxis yAxis = (NumberAxis) plot.getRangeAxis();
+        yAxis.setStandardTickUnits(NumberAxis.createIntegerTickUnits());
 
-        // Increase the y-axis range if necessary
-        ValueAxis yAxis = plot.getRangeAxis();
-        yAxis.setRange(0, 10); // Set the range from 0 to 10 (adjust as needed)
-
-        // Set label angle (e.g., 45 degrees)
-        xAxis.setCategoryLabelPositions(
-                CategoryLabelPositions.createUpRotationLabelPositions(Math.PI / 4.0) // 45-degree rotation
-        );
-
-        // Increase the margin between labels if needed
-        xAxis.setCategoryMargin(0.3); // Adjust the margin between categories
+        ReportMetrics.end(event);
 
         // Returns historgram chart
         return chart;
@@ -138,32 +125,31 @@ public class Histogram extends ApplicationFrame {
 
 
     /**
-     * Saves a given `JFreeChart` object as a PNG image and returns the file path.
-     *
-     * This method creates a temporary file to store the chart image and uses the `ChartUtils` class
-     * to write the `JFreeChart` object to the file as a PNG with specified dimensions.
+     * Encodes a given `JFreeChart` object as a PNG image in memory.
      *
-     * @param chart The `JFreeChart` object representing the chart to be saved as an image.
+     * This method uses the `ChartUtils` class to write the `JFreeChart` object to a byte buffer as a PNG
+     * with specified dimensions, so the chart can be added to the report without writing a temporary file.
      *
-     * @return The absolute file path of the saved PNG image, or `null` if an error occurs.
+     * @param chart The `JFreeChart` object representing the chart to be encoded as an image.
      *
-     * @throws IOException If an input/output exception occurs while creating the file or saving the chart.
+     * @return The PNG image of the chart, or `null` if an error occurs.
      */
-    protected String saveChartAsImage(JFreeChart chart) {
+    protected static byte[] encodeChartAsPNG(JFreeChart chart) {
+        ReportStageEvent event = ReportMetrics.begin(ReportMetrics.Stage.CHART_IMAGE);
         try {
-            // Create a temporary file to save the chart as an image
-            File tempChartFile = File.createTempFile("chart", ".png");
+            ByteArrayOutputStream chartImage = new ByteArrayOutputStream();
 
-            // Save the chart as PNG with defined width and height
-            ChartUtils.saveChartAsPNG(tempChartFile, chart, 500, 300);  // Adjust width and height as needed
+            // Encode the chart as PNG with defined width and height
+            ChartUtils.writeChartAsPNG(chartImage, chart, 500, 300);  // Adjust width and height as needed
 
-            // Return the absolute path of the temporary file
-            return tempChartFile.getAbsolutePath();
+            return chartImage.toByteArray();
 
-        // Handles exception with file creation
+        // Handles exception with encoding the image
         } catch (IOException e) {
             System.err.println(e);
             return null;  // Return null if there's an issue
+        } finally {
+            ReportMetrics.end(event);
         }
     }
 }
@@ -0,0 +1,274 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+// Reads decks that only ever grow, such as logs that new "CardName:CardCost" lines are appended to, from where the
+// last read stopped
+
+// For every deck file, a checkpoint keeps the byte offset after its last complete line together with the totals
+// up to that line: card count, invalid card count, total cost and the number of cards of every energy cost.
+// The next read starts from these totals and only reads the lines appended since, so the report of a large deck
+// with a few new lines takes as long as the new lines. A deck whose report is void stays void whatever is appended
+// to it, so it is never read again.
+
+// A checkpoint is only used when the deck file still has the same bytes just before the offset, so a deck that
+// was rewritten or replaced instead of appended to is read again from the start.
+
+public class IncrementalDeckReader {
+
+    private static final String HEADER = "# IncrementalDeckReader 1";
+
+    // Bytes before the offset compared to tell an appended deck from a rewritten one
+    private static final int FINGERPRINT_BYTES = 4096;
+
+    private final Path stateFile;
+
+    // Last checkpoint of every deck file by its absolute path
+    private final Map<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+
+    // Where the last read of a deck stopped and the totals up to there
+    private static final class Checkpoint {
+        private final int catalogVersion;
+        private final long offset;
+        private final long fingerprint;
+        private final int cardCount;
+        private final int invalidCount;
+        private final double totalCost;
+        private final int[] costCounts;
+
+        private Checkpoint(int catalogVersion, long offset, long fingerprint, int cardCount, int invalidCount,
+                           double totalCost, int[] costCounts) {
+            this.catalogVersion = catalogVersion;
+            this.offset = offset;
+            this.fingerprint = fingerprint;
+            this.cardCount = cardCount;
+            this.invalidCount = invalidCount;
+            this.totalCost = totalCost;
+            this.costCounts = costCounts;
+        }
+    }
+
+    /**
+     * Opens the checkpoints saved by {@link #save()}, if the file exists.
+     *
+     * @param stateFile The path to the file the checkpoints are saved to.
+     */
+    public IncrementalDeckReader(Path stateFile) {
+        this.stateFile = stateFile;
+        if (!Files.isRegularFile(stateFile)) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+            // Checkpoints of another format are ignored, so every deck is read again from the start
+            String header = reader.readLine();
+            if (header == null || !header.equals(HEADER)) {
+                return;
+            }
+
+            // Each line is "catalogVersion offset fingerprint cardCount invalidCount totalCost count0,...,count6 file"
+            String line = reader.readLine();
+            while (line != null) {
+                String[] fields = line.split("\t", 8);
+                if (fields.length == 8) {
+                    String[] counts = fields[6].split(",");
+                    int[] costCounts = new int[counts.length];
+                    for (int i = 0; i < counts.length; i++) {
+                        costCounts[i] = Integer.parseInt(counts[i]);
+                    }
+                    checkpoints.put(fields[7], new Checkpoint(Integer.parseInt(fields[0]), Long.parseLong(fields[1]),
+                            Long.parseLong(fields[2]), Integer.parseInt(fields[3]), Integer.parseInt(fields[4]),
+                            Double.parseDouble(fields[5]), costCounts));
+                }
+                line = reader.readLine();
+            }
+
+        // Handle I/O exceptions during file reading, every deck is then read from the start
+        } catch (IOException | NumberFormatException e) {
+            System.err.println(e);
+        }
+    }
+
+    /**
+     * Reads a deck for its report, only reading the lines appended since the last read of the same deck
+     * with the same card check. The totals are the same as {@link DeckIngestor#readForReport(String, CardCheck, int)},
+     * while the invalid card samples and the diagnostics only cover the lines read this time.
+     *
+     * A binary deck cannot be appended to, so it is always read in full.
+     *
+     * @param file The path to the input file containing the card data.
+     * @param cardCheck An additional check applied to the trimmed card name and card cost, or `null` for none.
+     * @param invalidSampleLimit The number of invalid cards kept as samples.
+     *
+     * @return The streaming result of the deck.
+     */
+    public DeckResult readForReport(String file, CardCheck cardCheck, int invalidSampleLimit) {
+        if (BinaryDeck.isBinaryDeck(file)) {
+            return DeckIngestor.readForReport(file, cardCheck, invalidSampleLimit);
+        }
+
+        ReportStageEvent event = ReportMetrics.begin(ReportMetrics.Stage.READ);
+        String key = Paths.get(file).toAbsolutePath().normalize().toString();
+        int catalogVersion = cardCheck == null ? 0 : CardCatalog.getInstance().getVersion();
+        DeckResult result = DeckResult.streaming(invalidSampleLimit);
+        long bytesRead = 0;
+
+        // Totals restored from the checkpoint, the metrics only count the lines read this time
+        int restoredCards = 0;
+        int restoredInvalid = 0;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            // Start from the last checkpoint, unless the deck was rewritten or checked against another catalog
+            long offset = 0;
+            Checkpoint checkpoint = checkpoints.get(key);
+            if (checkpoint != null && checkpoint.catalogVersion == catalogVersion && checkpoint.offset <= size
+                    && checkpoint.fingerprint == fingerprint(channel, checkpoint.offset)) {
+                result.restoreTotals(checkpoint.cardCount, checkpoint.invalidCount, checkpoint.totalCost, checkpoint.costCounts);
+                offset = checkpoint.offset;
+                restoredCards = checkpoint.cardCount;
+                restoredInvalid = checkpoint.invalidCount;
+            }
+
+            // A void report stays void, nothing appended can change it
+            if (result.isVoid()) {
+                result.stopEarly();
+                ReportMetrics.endRead(event, result, 0, 0, 0);
+                return result;
+            }
+
+            // Read up to the end of the last complete line, the line after it may still be being written
+            // The lines are read from the position of the channel, so it ends up past the last byte read
+            long end = lastLineEnd(channel, offset, size);
+            DeckIngestor.ingest(lines(channel, offset, end), cardCheck, result, true);
+            bytesRead = channel.position() - offset;
+            checkpoints.put(key, new Checkpoint(catalogVersion, end, fingerprint(channel, end), result.getCardCount(),
+                    result.getInvalidCount(), result.getTotalCost(), result.getCostCounts()));
+
+            // The last line without a newline is part of this report, the same as reading the whole deck,
+            // and is read again next time
+            if (end < size && !result.isVoid()) {
+                DeckIngestor.ingest(lines(channel, end, size), cardCheck, result, true);
+                bytesRead += channel.position() - end;
+            }
+
+        // Handle I/O exceptions during file reading
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+
+        ReportMetrics.endRead(event, result, bytesRead, result.getCardCount() - restoredCards,
+                result.getInvalidCount() - restoredInvalid);
+        return result;
+    }
+
+    /**
+     * Saves every checkpoint, so the next run only reads what was appended to each deck.
+     */
+    public synchronized void save() {
+        try (BufferedWriter writer = Files.newBufferedWriter(stateFile, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+
+            for (Map.Entry<String, Checkpoint> entry : checkpoints.entrySet()) {
+                Checkpoint checkpoint = entry.getValue();
+                StringBuilder counts = new StringBuilder();
+                for (int i = 0; i < checkpoint.costCounts.length; i++) {
+                    counts.append(i == 0 ? "" : ",").append(checkpoint.costCounts[i]);
+                }
+
+                writer.write(checkpoint.catalogVersion + "\t" + checkpoint.offset + "\t" + checkpoint.fingerprint + "\t"
+                        + checkpoint.cardCount + "\t" + checkpoint.invalidCount + "\t" + checkpoint.totalCost + "\t"
+                        + counts + "\t" + entry.getKey());
+                writer.newLine();
+            }
+
+        // Handle I/O exceptions during file writing
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    // Checksum of the bytes just before an offset
+    private static long fingerprint(FileChannel channel, long offset) throws IOException {
+        int length = (int) Math.min(FINGERPRINT_BYTES, offset);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer, offset - length + buffer.position()) > 0) {
+            // Keep reading until the buffer is full
+        }
+        buffer.flip();
+
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer);
+        return checksum.getValue();
+    }
+
+    // Finds the byte after the last newline between two offsets, or the first offset if there is no newline
+    private static long lastLineEnd(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long position = to;
+        while (position > from) {
+            int length = (int) Math.min(buffer.capacity(), position - from);
+            buffer.clear().limit(length);
+            while (buffer.hasRemaining() && channel.read(buffer, position - length + buffer.position()) > 0) {
+                // Keep reading until the buffer is full
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return position - length + i + 1;
+                }
+            }
+            position -= length;
+        }
+        return from;
+    }
+
+    // The lines between two offsets, in the default charset the same as the line by line reader
+    private static BufferedReader lines(FileChannel channel, long from, long to) throws IOException {
+        InputStream in = Channels.newInputStream(channel.position(from));
+        return new BufferedReader(new InputStreamReader(new FilterInputStream(in) {
+            private long remaining = to - from;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                remaining--;
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int read = super.read(b, off, (int) Math.min(len, remaining));
+                if (read > 0) {
+                    remaining -= read;
+                }
+                return read;
+            }
+
+            // The channel is closed with the deck, not with its lines
+            @Override
+            public void close() {
+            }
+        }));
+    }
+}
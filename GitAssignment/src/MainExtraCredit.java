@@ -1,11 +1,11 @@
 import org.jfree.chart.JFreeChart;
 import org.jfree.ui.RefineryUtilities;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.awt.GraphicsEnvironment;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Random;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 // Valid costs for a card in the deck are positive integers between 0 and 6 (inclusive)
 // Each card has an associated energy cost, determining how many energy points are required to play that card
@@ -19,423 +19,174 @@ import java.util.Random;
 
 public class MainExtraCredit {
 
-    private static String deckId;
-    private static double totalCost;
-
-    private static int cardCount;
-
-    protected static ArrayList<String[]> cardList = new ArrayList<>();
-    protected static ArrayList<String[]> invalidCardList = new ArrayList<>();
-
-
+    // Number of invalid cards kept as samples, the report only needs the totals
+    private static final int INVALID_SAMPLES = 20;
 
     /**
      * Reads the deck from a plain text file in which each row contains a single card name and its cost,
-     * separated by a colon. This method processes the file and populates the valid and invalid card lists.
-     *
-     *
-     * Each line is expected to have the format: "CardName:CardCost".
-     * The method ensures each line contains exactly two elements and checks the validity of each card.
-     * Valid cards are added to the `cardList`, while invalid cards are added to the `invalidCardList`.
-     * The method handles up to 1000 cards.
+     * separated by a colon, and builds the card count, invalid card count, total cost and energy cost histogram.
      *
+     * The deck file is read and validated only once, and reading stops as soon as the report is void,
+     * see {@link DeckIngestor#readForReport(String, CardCheck, int)}.
      *
      * @param file The path to the input file containing the card data.
      *
-     * @return The list of valid cards, where each entry is a String array containing:
-     *         - card name (index 0)
-     *         - card cost (index 1)
-     *
-     * @throws IOException If an input or output exception occurred while reading the file.
+     * @return The result of the deck containing the card count, total cost and energy cost histogram.
      */
-    private static  ArrayList<String[]> readInputFile(String file) {
-        BufferedReader reader = null;
-        boolean cardValidity;
-        int cardIndex = 0; // Counter to ensure the program handles up to 1000 cards
-
-        try {
-            // Initialize file reader
-            reader = new BufferedReader(new FileReader(file));
-            String line = reader.readLine();
-
-            // Loop through each line in the file
-            while (line != null) {
-                // Split line by colon delimiter to separate card name and energy cost
-                String[] card = line.split(":");
-
-                // Check if line is correctly formatted with 2 elements
-                if (card.length == 2) {
-                    String cardName = card[0];
-                    String cardCost = card[1];
-
-                    // Check validity of card
-                    cardValidity = validCardChecker(cardName, cardCost); // ValidCardName checked here EC1
-
-                    if (cardValidity && cardIndex < 1000) {
-                        cardList.add(card);  // Add valid card
-                    } else {
-                        invalidCardList.add(card);  // Add invalid cards to list for void report
-                    }
-
-                    cardIndex++; // Increment counter to ensure there are no more than 1000 cards in a given deck
-                } else {
-                    System.err.println("Invalid line format: " + line);
-                }
-
-                line = reader.readLine();
-            }
-
-        // Handle I/O exceptions during file reading
-        } catch (IOException e) {
-            System.err.println(e);
-        }
-
-        // Declare total card count for later reference
-        cardCount = cardIndex;
-
-        // return list of valid cards
-        return cardList;
-    }
-
-
-    /**
-     * Generates a random 9-digit unique identifier for a deck based on the input file name.
-     *
-     * <p>
-     * The method creates a random numeric string of 9 digits using a `Random` object. This string is
-     * then assigned to the `deckId` variable and returned as the unique deck identifier.
-     * </p>
-     *
-     * @param file The name of the input file (used here only as a parameter for compatibility).
-     *
-     * @return A 9-digit string that serves as the unique deck identifier.
-     */
-    private static String generateFileId(String file){
-        // Initialize a StringBuilder to accumulate digits
-        StringBuilder randomString = new StringBuilder();
-        Random digit = new Random();
-
-        // Generate a random 9-digit string
-        for(int i = 0; i < 9; i++){
-          randomString.append((digit.nextInt(10))); // Bound range from 0-9 for each digit
-        }
-
-        // Convert stringBuilder back to a string for unique deck identifier
-        deckId = randomString.toString();
-
-        // Return the unique deck ID
-        return deckId;
+    private static DeckResult readInputFile(String file) {
+        return DeckIngestor.readForReport(file, MainExtraCredit::validCardChecker, INVALID_SAMPLES);
     }
 
 
-    /**
-     * Reads the deck from the input file and calculates the total cost of all valid cards.
-     *
-     * This method processes the input file, where each line contains a card name and cost in the format
-     * "CardName:CardCost". It checks the validity of each card and sums up the total cost for all valid cards.
-     * Invalid card costs or improperly formatted lines are ignored.
-     *
-     * @param file The path to the input file containing card names and costs.
-     *
-     * @return The total cost of all valid cards in the deck. If no valid cards are found, returns 0.
-     *
-     * @throws IOException If an input/output exception occurs while reading the file.
-     */
-    private static double findTotalCost(String file){
-        // Initialize the file reader
-        BufferedReader reader = null;
-        double cost = 0;
-        try {
-            reader = new BufferedReader(new FileReader(file));
-            String line = reader.readLine();
-
-            // Loop through each line in the file
-            while (line != null) {
-
-                // Ensure the line contains a colon to separate card name and cost
-                if (line.contains(":")) {
-                    String[] card = line.split(":");
-
-                    // Ensure the line contains exactly two elements (name and cost)
-                    if (card.length == 2) {
-                        String cardName = card[0].trim();  // Trim spaces
-                        String cardCost = card[1].trim();
-
-                        // Validate the card name and cost
-                        if (validCardChecker(cardName, cardCost)) {
-                            try {
-                                // Parse card cost and add to total cost (after converting to double)
-                                cost += Double.parseDouble(cardCost);
-                            } catch (NumberFormatException e) {
-                                System.err.println("Invalid card cost format for '" + cardName + "': " + cardCost);
-                            }
-                    }
-                }
-
-                } else {
-                    // In all other cases, card must be invalid based on the line input fomat
-                    System.out.println("Invalid card input. Cards should be in this format ");
-                }
-
-                // Reads next line
-                line = reader.readLine();
-            }
-
-            // Handle any I/O exceptions that occur while reading the file
-            } catch (IOException e) {
-                System.err.println(e);
-            }
-
-        // returns total cost of deck
-        return cost;
-
-    }
-
     /**
      * Checks the validity of the card based on the name and cost provided.
      *
      *
+     * The name and cost format are already checked by the {@link CardLineParser} when the line is read,
+     * so this only checks the card against the Slay the Spire game.
+     * Text file derived from excel sheet found here: https://www.reddit.com/r/slaythespire/comments/yjll3t/pdf_printable_card_guide/
      * A valid card should have:
-     * - A non-empty name.
-     * - A numeric cost that is non-negative.
+     * - A name of a card in the actual game (Extra Credit 1: (EC1) Card Name Validation (+5)).
+     * - A cost matching one of the possible energy costs of the card, either the Cost or the alternative Cost2
+     *   (Extra Credit 3: (EC3) Custom Feature (Up to 10 points)).
+     *
+     * Every card name + cost combo is only checked against the catalog once, repeats use the {@link ValidationCache}.
      *
      *
      * @param cardName The name of the card.
      * @param cardCost The cost of the card as a string.
+     * @param diagnostics The collector an unknown card or a wrong energy cost is recorded in.
      * @return `true` if the card is valid, `false` otherwise.
      */
-    private static boolean validCardChecker(String cardName, String cardCost){
-        boolean valid = true;
-        // Check invalid cost value, a card with empty name, a card with name that is only spaces or tabs, checks cardName as valid card in actual game
-        if (cardName == null || cardName.trim().isEmpty()) {
-            System.err.println("Invalid card name: '" + cardName + "'. It cannot be empty or only spaces.");
-            valid = false;
-        }
-        // Ensure card name is valid
-        if (cardName != null && !cardName.matches("[a-zA-Z ]+")) {
-            System.err.println("Invalid card name format: '" + cardName + "'. Card names should only contain alphabetic characters and spaces.");
-            valid = false;
-        }
+    protected static boolean validCardChecker(String cardName, String cardCost, ValidationDiagnostics diagnostics){
+        byte result = ValidationCache.getInstance().check(cardName, cardCost);
 
         // Implementation of EC1: Valid Card Name
-        if(!validCardName(cardName)){
-            System.err.println("CardName: '" + cardName + "' is not a valid card in the Splay the Spire Game");
-            valid = false;
+        if (result == ValidationCache.UNKNOWN_CARD) {
+            diagnostics.record(ValidationDiagnostics.ErrorType.UNKNOWN_CARD, cardName, cardCost);
+            return false;
         }
 
         // Implementation of EC2: Custom Feature: Valid Card Name + Cost Combo
-        if(!validCardCombo(cardName, cardCost)){
-            System.err.println("CardName: '" + cardName + "' and CardEnergy : '" + cardCost + "' are not valid combinations in the Splay the Spire Game");
-            //System.err.println("Valid Energy for your card : '" + cardName + " are " ); // Lists the correct card energy for the current card
-            valid = false;
-        }
-        try {
-            int cost = Integer.parseInt(cardCost.trim()); // Convert string to integer
-            if (cost < 0 || cost > 6) { // Energy cards are typically between 0 - 6
-                //System.err.println("Invalid card cost for '" + cardName + "': " + cost + ". Card energy must be between 0 and 6.");
-                valid = false;
-            }
-        } catch (NumberFormatException e) {
-            System.err.println("Invalid card cost format for '" + cardName + "': " + cardCost + ". It must be a number.");
-            valid = false;
+        // Call for method that will notify user of correct energy combination
+        if (result == ValidationCache.WRONG_ENERGY) {
+            invalidCardEnergy(cardName, cardCost, diagnostics);
+            return false;
         }
-        return valid;
+        return true;
     }
 
     /**
-     * Checks the validity of the card based on the name provided by comparing it to a list of card names
-     * Extra Credit 1: (EC1) Card Name Validation (+5)
-     * Text file derived from excel sheet found here: https://www.reddit.com/r/slaythespire/comments/yjll3t/pdf_printable_card_guide/
-     * A valid card should have:
-     * - A non-empty name.
-     * - matched name corresponding to a name in the splay the spire card file
-     *
-     *
-     * @param cardName The name of the card.
-     * @return `true` if the cardName is valid, `false` otherwise.
-     */
-    private static boolean validCardName(String cardName) {
-        boolean valid = false;
-        BufferedReader reader = null;
-
-        String cardFile = "AllCard.txt";
-        try {
-            reader = new BufferedReader(new FileReader(cardFile));
-            String card = reader.readLine();
-
-            // Loop through each line in the file
-            while (card != null) {
-
-                card.trim(); // Ensure additional spaces don't follow
-
-                if (card.equalsIgnoreCase(cardName)) {  // Ensure case doesn't affect comparison
-                    valid = true;  // Found a match
-                    break;
-                }
-
-                card = reader.readLine();
-            }
-
-        }
-        // Handle I/O exceptions during file reading
-        catch (IOException e) {
-        System.err.println(e);
-    }
-
-        // cardName is invalid by default if match was never found
-        return valid;
-    }
-
-
-    /**
-     * Checks the validity of the card based on the name provided by comparing it to a list of card names and the possible energy costs
+     * Records the correct energy costs for a given cardName if there is an invalid card Energy corresponding to the cardName in the splice game
      * Extra Credit 3: (EC3) Custom Feature (Up to 10 points):
      * Text file derived from excel sheet found here: https://www.reddit.com/r/slaythespire/comments/yjll3t/pdf_printable_card_guide/
      *
-     * A valid card should have:
-     * - A non-empty name.
-     * - matched name corresponding to a name in the splay the spire card file
-     * - match the possible energy cost of the corresponding card
+     * The valid energies are only looked up while the collector still keeps the details of its errors,
+     * they are printed with the summary of the deck.
      *
      *
      * @param cardName The name of the card
      * @param cardEnergy The energy cost of the card
-     * @return `true` if the cardName and cardEnergy combo is valid, `false` otherwise.
+     * @param diagnostics The collector the wrong energy cost is recorded in
      */
-    private static boolean validCardCombo(String cardName, String cardEnergy){
-        boolean valid = false;
-        BufferedReader reader = null;
-        String csvFile = "SlaytheSpireReference.csv";
-        String line;
-        String csvSplitBy = ",";
-
-
-        try {
-            reader = new BufferedReader(new FileReader(csvFile));
-            line = reader.readLine();
-            while (line != null) {
-                // Split by comma
-                String[] cardInfo = line.split(csvSplitBy);
-                // card[0] is card name, card[1] is energy cost
-                //System.out.println("Card Name: " + card[0] + " , Energy Cost: " + card[1] + " , Other Energy Cost: " + card[2] );
-
-                if (cardInfo.length > 1) {  // Ensure there's at least a name and energy column
-                    String csvCardName = cardInfo[0].trim();  // Get card name
-                    String csvCardEnergy = cardInfo[1].trim();  // Get card energy (Cost)
-
-                    // Check if the card name matches and the energy is valid
-                    if (csvCardName.equalsIgnoreCase(cardName)) {
-                        if (csvCardEnergy.equals(cardEnergy)) {
-                            valid = true;  // Both name and energy match
-                            break;  // No need to continue, exit the loop
-                        }
-                    }
-
-                    // Check card's alternative energy card if it exists
-                    if (cardInfo.length > 2 && cardInfo[2] != null && !cardInfo[2].trim().isEmpty()) {
-                        String csvCardAltEnergy = cardInfo[2].trim();  // Alternative energy cost
-
-                        // Check if the alternative energy cost matches
-                        if (csvCardAltEnergy.equals(cardEnergy)) {
-                            valid = true;  // Match found with alternative energy
-                            break;
-
-                        }
-                    }
-
-                    // Handle the case where cardName matches but has an invalid cardEnergy
-                    // Call for method that will notify user of correct energy combination
-                    if (csvCardName.equalsIgnoreCase(cardName)) {
-                        // and CardEnergy doesn't equal it
-                        if (!csvCardEnergy.equals(cardEnergy)) {
-                            invalidCardEnergy(cardName, csvCardEnergy, cardInfo);
-                            break;
-
-
-                        }
-                    }
-
-
-                }
-
-                line = reader.readLine();
-
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+    private static void invalidCardEnergy(String cardName, String cardEnergy, ValidationDiagnostics diagnostics) {
+        if (diagnostics.isFull()) {
+            diagnostics.count(ValidationDiagnostics.ErrorType.WRONG_ENERGY);
+            return;
         }
 
-        return valid;
+        // Record the error with the valid energies of the card
+        diagnostics.record(ValidationDiagnostics.ErrorType.WRONG_ENERGY, cardName, cardEnergy,
+                CardCatalog.getInstance().getValidEnergies(cardName));
     }
 
-
-
-    /**
-     * Prints out the correct energy costs for a given cardName if there is an invalid card Energy corresponding to the cardName in the splice game
-     * Extra Credit 3: (EC3) Custom Feature (Up to 10 points):
-     * Text file derived from excel sheet found here: https://www.reddit.com/r/slaythespire/comments/yjll3t/pdf_printable_card_guide/
-     *
-     *
-     * @param cardName The name of the card
-     * @param primaryEnergy The energy cost of the card
-     * @param cardInfo The current row containing the cardName and possible energy costs
-     * @return `true` if the cardName and cardEnergy combo is valid, `false` otherwise.
-     */
-    private static void invalidCardEnergy(String cardName, String primaryEnergy, String[] cardInfo) {
-        // Construct the message with valid energy options
-        StringBuilder validEnergies = new StringBuilder();
-        validEnergies.append(primaryEnergy);  // Append primary energy
-
-        // If there's an alternative energy, append that as well
-        if (cardInfo.length > 2 && cardInfo[2] != null && !cardInfo[2].trim().isEmpty()) {
-            validEnergies.append(", ").append(cardInfo[2].trim());  // Append alternative energy cost
+    public static void main(String[] args) {
+        // Never start the Swing frame when asked to run headless, the same as -Djava.awt.headless=true
+        if (Arrays.asList(args).contains("--headless")) {
+            System.setProperty("java.awt.headless", "true");
         }
 
-        // Print out the message indicating valid energies
-        System.err.println("CardName: '" + cardName + "' and CardEnergy: '" + cardInfo[1] + "' are not valid combinations in the Splay the Spire Game.");
-
-        System.err.println("Valid Energy for your card: '" + cardName + "' are: " + validEnergies.toString());
-    }
+        // Time every stage of the report and write the metrics as JSON at exit with --metrics <file>
+        int metricsArg = Arrays.asList(args).indexOf("--metrics");
+        if (metricsArg >= 0 && metricsArg + 1 < args.length) {
+            ReportMetrics.dumpAtExit(Paths.get(args[metricsArg + 1]));
+        }
 
-    public static void main(String[] args) {
         String inputFile = "/Users/suadhm/IdeaProjects/GitAssignment/src/InputFile.txt";
         String filePath = "/Users/suadhm/IdeaProjects/GitAssignment/";
 
-        cardList = readInputFile(inputFile);
-        totalCost = findTotalCost(inputFile);
-        deckId = generateFileId(inputFile);
-
-
-        // Create and display the histogram
-        Histogram histogram = new Histogram("Histogram Test", cardList);
-        histogram.pack();
-        RefineryUtilities.centerFrameOnScreen(histogram);
-        histogram.setVisible(true);
+        // Start from the card checks of earlier runs with --validation-cache <file>
+        int cacheArg = Arrays.asList(args).indexOf("--validation-cache");
+        Path cacheFile = cacheArg >= 0 && cacheArg + 1 < args.length ? Paths.get(args[cacheArg + 1]) : null;
+        if (cacheFile != null) {
+            ValidationCache.getInstance().load(cacheFile);
+        }
 
-        // Generate a chart from the histogram's dataset
-        JFreeChart chart = histogram.createChart(histogram.createDataset(cardList));
+        // Print the totals of every line of the deck instead of writing its report with --totals,
+        // very large decks are read in parallel chunks, see DeckIngestor.readTotals
+        if (Arrays.asList(args).contains("--totals")) {
+            DeckResult totals = DeckIngestor.readTotals(inputFile, MainExtraCredit::validCardChecker, INVALID_SAMPLES);
+            totals.getDiagnostics().printSummary(inputFile, System.err);
+            totals.printTotals(inputFile, System.out);
+            if (cacheFile != null) {
+                ValidationCache.getInstance().save(cacheFile);
+            }
+            return;
+        }
 
-        // Save the chart as a temporary image
-        String chartImagePath = histogram.saveChartAsImage(chart);
-        StringBuilder uniqueFileName = new StringBuilder("SpireDeck_");
+        // Reuse the report of an unchanged deck with --report-cache <directory>, the histogram is then never displayed
+        int reportCacheArg = Arrays.asList(args).indexOf("--report-cache");
+        if (reportCacheArg >= 0 && reportCacheArg + 1 < args.length) {
+            try {
+                ReportCache cache = new ReportCache(Paths.get(args[reportCacheArg + 1]), ReportCache.DEFAULT_MAX_BYTES);
+                ReportGenerator.generateReport(cache, filePath, ReportGenerator.generateFileId(inputFile), inputFile,
+                        MainExtraCredit::validCardChecker, INVALID_SAMPLES);
+            } catch (IOException e) {
+                System.err.println(e);
+            }
+            if (cacheFile != null) {
+                ValidationCache.getInstance().save(cacheFile);
+            }
+            return;
+        }
 
-        uniqueFileName.append(deckId);
+        // Only read the lines appended since the last run with --incremental <checkpoint file>
+        int incrementalArg = Arrays.asList(args).indexOf("--incremental");
+        DeckResult deck;
+        if (incrementalArg >= 0 && incrementalArg + 1 < args.length) {
+            IncrementalDeckReader reader = new IncrementalDeckReader(Paths.get(args[incrementalArg + 1]));
+            deck = reader.readForReport(inputFile, MainExtraCredit::validCardChecker, INVALID_SAMPLES);
+            reader.save();
+        } else {
+            deck = readInputFile(inputFile);
+        }
+        deck.getDiagnostics().printSummary(inputFile, System.err);
+        if (cacheFile != null) {
+            ValidationCache.getInstance().save(cacheFile);
+        }
+        String deckId = ReportGenerator.generateFileId(inputFile);
 
-        // Outputs a void report will follow the format SpireDeck_id(VOID).pdf
-        if(invalidCardList.size() > 10 || cardCount > 999){
-            uniqueFileName.append("(VOID).pdf");
-            filePath += uniqueFileName;
-            PDFGenerator.generatePDFVariables(filePath);
+        // A void report only contains the word VOID, so the chart is never drawn for it
+        if (deck.isVoid()) {
+            ReportGenerator.writeReport(filePath, deckId, deck, null);
+            return;
+        }
 
-        // Outputs report using the format SpireDeck .pd
-        }else{
-            uniqueFileName.append(".pdf");
-            filePath += uniqueFileName;
+        // Generate the chart once from the energy cost histogram counted while reading the deck
+        JFreeChart chart = Histogram.createChart(Histogram.createDataset(deck.getCostCounts()));
 
-            //System.out.println(filePath);
+        // Encode the chart as an image in memory for the report
+        byte[] chartImage = Histogram.encodeChartAsPNG(chart);
 
-            // Generate PDF with the deck details and chart
-            PDFGenerator.generatePDFVariables(filePath, totalCost, deckId, chartImagePath);
+        // Display the histogram only when there is a screen, report servers run headless
+        if (!GraphicsEnvironment.isHeadless()) {
+            Histogram histogram = new Histogram("Histogram Test", chart);
+            histogram.pack();
+            RefineryUtilities.centerFrameOnScreen(histogram);
+            histogram.setVisible(true);
         }
+
+        // Outputs the report with the deck details and chart as SpireDeck_id.pdf
+        ReportGenerator.writeReport(filePath, deckId, deck, chartImage);
     }
 }
\ No newline at end of file
@@ -1,6 +1,15 @@
+import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.CompressionConstants;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Image;
 import com.itextpdf.layout.element.Paragraph;
@@ -8,21 +17,55 @@ import org.jfree.chart.JFreeChart;
 
 import com.itextpdf.io.image.ImageData;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// Reports can also be generated in template mode: the static labels of the deck report are laid out once into an
+// in-memory template PDF that every report only fills in with its deck ID, total cost and chart, and the VOID report
+// is generated once and copied byte for byte with the deck ID stamped into its document title.
+// A report can also be generated with a placeholder deck ID written as plain text, so a finished report can be kept
+// by the ReportCache and copied again for another deck ID. The placeholder is written exactly once, in the document
+// title of the VOID report or in a small form drawn after both ID labels of the deck report, and a report with any
+// other number of matches, such as a chart image that happens to hold the same bytes, is never stamped.
+
 public class PDFGenerator {
 
+    // Layout of the deck report template and the CombinedReport, in points from the bottom left corner of an A4 page
+    static final float MARGIN = 36;
+    static final float FONT_SIZE = 12;
+    static final float LINE_HEIGHT = 18;
+    static final float CHART_WIDTH = 500;
+    static final float CHART_HEIGHT = 300;
+    static final String[] LABELS = {"Deck Report: ", "Deck ID: ", "Total Cost: "};
+
+    // Stamped over by the deck ID in copies of a report, deck IDs are always 9 digits
+    // Every digit and the # sign have the same width in Helvetica, so the layout does not change
+    private static final byte[] DECK_ID_PLACEHOLDER = "#########".getBytes(StandardCharsets.US_ASCII);
+
+    // Holder class so the templates are only generated the first time a report is written in template mode
+    private static class Templates {
+        private static final byte[] REPORT = reportTemplate();
+        private static final byte[] VOID_REPORT = voidReport(new String(DECK_ID_PLACEHOLDER, StandardCharsets.US_ASCII));
+    }
+
     /**
      * Generates a PDF report containing deck information and a chart image.
      *
      * This method creates a PDF report that includes a deck ID, the total cost of the deck, and a chart image if provided.
+     * The chart image is read from memory, so the final PDF is the only file written.
      *
      * @param filePath The file path where the PDF will be saved.
      * @param totalCost The total cost of the deck.
      * @param deckId The identifier of the deck.
-     * @param chartImagePath The file path of the chart image to be included in the PDF. If `null`, the image is not included.
+     * @param chartImage The PNG image of the chart to be included in the PDF. If `null`, the image is not included.
      *
      * @throws Exception if an error occurs while generating the PDF file.
      */
-    public static void generatePDFVariables(String filePath, double totalCost, String deckId, String chartImagePath) {
+    public static void generatePDFVariables(String filePath, double totalCost, String deckId, byte[] chartImage) {
         try {
             // Set up the PDF writer
             PdfWriter writer = new PdfWriter(filePath);
@@ -36,11 +79,10 @@ public class PDFGenerator {
             document.add(new Paragraph("Deck ID: " + deckId));
             document.add(new Paragraph("Total Cost: " + totalCost));
 
-            // Add the chart image to the PDF
-            if (chartImagePath != null) {
-                ImageData imageData = ImageDataFactory.create(chartImagePath);
-                Image chartImage = new Image(imageData);
-                document.add(chartImage);
+            // Add the chart image to the PDF straight from memory
+            if (chartImage != null) {
+                ImageData imageData = ImageDataFactory.create(chartImage);
+                document.add(new Image(imageData));
             } else {
                 System.out.println("Error: Could not add chart image to PDF.");
             }
@@ -85,6 +127,221 @@ public class PDFGenerator {
     }
 
 
+    /**
+     * Generates the PDF report of a deck in template mode.
+     *
+     * This creates the same report as {@link #generatePDFVariables(String, double, String, byte[])}, but the static
+     * labels come from a template laid out once, so the report only draws the deck ID, total cost and chart.
+     *
+     * @param filePath The file path where the PDF will be saved.
+     * @param totalCost The total cost of the deck.
+     * @param deckId The identifier of the deck.
+     * @param chartImage The PNG image of the chart to be included in the PDF. If `null`, the image is not included.
+     */
+    public static void generateReportFromTemplate(String filePath, double totalCost, String deckId, byte[] chartImage) {
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(Templates.REPORT)),
+                new PdfWriter(filePath))) {
+            fillTemplate(pdfDoc, totalCost, deckId, chartImage, false);
+
+        } catch (Exception e) {
+            System.err.println(e);
+            return;
+        }
+
+        System.out.println("PDF report of cards successfully generated " + filePath);
+    }
+
+    /**
+     * Generates the PDF report of a deck in template mode with a placeholder deck ID,
+     * see {@link #stampDeckId(byte[], String)}.
+     *
+     * @param totalCost The total cost of the deck.
+     * @param chartImage The PNG image of the chart to be included in the PDF. If `null`, the image is not included.
+     *
+     * @return The PDF report.
+     */
+    static byte[] generateReportWithPlaceholderId(double totalCost, byte[] chartImage) throws IOException {
+        return renderReport(totalCost, new String(DECK_ID_PLACEHOLDER, StandardCharsets.US_ASCII), chartImage, true);
+    }
+
+    /**
+     * Renders the PDF report of a deck in template mode in memory, for a report that cannot be stamped.
+     *
+     * @param totalCost The total cost of the deck.
+     * @param deckId The identifier of the deck.
+     * @param chartImage The PNG image of the chart to be included in the PDF. If `null`, the image is not included.
+     *
+     * @return The PDF report.
+     */
+    static byte[] renderReport(double totalCost, String deckId, byte[] chartImage) throws IOException {
+        return renderReport(totalCost, deckId, chartImage, false);
+    }
+
+    private static byte[] renderReport(double totalCost, String deckId, byte[] chartImage, boolean stampable)
+            throws IOException {
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(Templates.REPORT)),
+                new PdfWriter(report))) {
+            fillTemplate(pdfDoc, totalCost, deckId, chartImage, stampable);
+        }
+        return report.toByteArray();
+    }
+
+    /**
+     * @return The "VOID" PDF report with a placeholder deck ID, see {@link #stampDeckId(byte[], String)}.
+     */
+    static byte[] generateVoidReportWithPlaceholderId() {
+        return Templates.VOID_REPORT.clone();
+    }
+
+    /**
+     * Renders the "VOID" PDF report of a deck in memory, for a report that cannot be stamped.
+     *
+     * @param deckId The identifier of the deck.
+     *
+     * @return The "VOID" PDF report with the deck ID in its document title.
+     */
+    static byte[] renderVoidReport(String deckId) {
+        return voidReport(deckId);
+    }
+
+    /**
+     * Copies a report generated with a placeholder deck ID, writing the deck ID over the placeholder.
+     *
+     * @param report The PDF report with a placeholder deck ID.
+     * @param deckId The 9-digit identifier of the deck.
+     *
+     * @return The PDF report of the deck, or `null` if the deck ID is not 9 digits or the placeholder
+     *         is not found exactly once in the report.
+     */
+    static byte[] stampDeckId(byte[] report, String deckId) {
+        // Only an ID of the same length can be stamped over the placeholder without moving the rest of the file
+        byte[] id = deckId.getBytes(StandardCharsets.US_ASCII);
+        if (id.length != DECK_ID_PLACEHOLDER.length) {
+            return null;
+        }
+
+        // Any other match could be part of an image or font stream, so its report is generated again instead
+        int offset = indexOf(report, DECK_ID_PLACEHOLDER, 0);
+        if (offset < 0 || indexOf(report, DECK_ID_PLACEHOLDER, offset + 1) >= 0) {
+            return null;
+        }
+
+        byte[] stamped = report.clone();
+        System.arraycopy(id, 0, stamped, offset, id.length);
+        return stamped;
+    }
+
+    // Draws the values of a deck report on the template
+    // The deck ID is written once in a form drawn after both of its labels, which is left uncompressed
+    // when the deck ID is stamped in later
+    private static void fillTemplate(PdfDocument pdfDoc, double totalCost, String deckId, byte[] chartImage,
+                                     boolean stampable) throws IOException {
+        PdfCanvas canvas = new PdfCanvas(pdfDoc.getFirstPage());
+        PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+
+        float descent = font.getDescent(deckId, FONT_SIZE);
+        PdfFormXObject deckIdText = new PdfFormXObject(
+                new Rectangle(0, descent, font.getWidth(deckId, FONT_SIZE), FONT_SIZE - descent));
+        new PdfCanvas(deckIdText, pdfDoc).beginText().setFontAndSize(font, FONT_SIZE).showText(deckId).endText();
+        if (stampable) {
+            deckIdText.getPdfObject().setCompressionLevel(CompressionConstants.NO_COMPRESSION);
+        }
+
+        // Fill in the values right after their labels, the first two are the deck ID
+        for (int i = 0; i < 2; i++) {
+            canvas.addXObject(deckIdText, MARGIN + font.getWidth(LABELS[i], FONT_SIZE), baseline(i));
+        }
+        canvas.beginText().setFontAndSize(font, FONT_SIZE)
+                .setTextMatrix(MARGIN + font.getWidth(LABELS[2], FONT_SIZE), baseline(2))
+                .showText(String.valueOf(totalCost))
+                .endText();
+
+        // Add the chart image below the labels straight from memory
+        if (chartImage != null) {
+            ImageData imageData = ImageDataFactory.create(chartImage);
+            canvas.addImage(imageData, MARGIN, baseline(LABELS.length) - CHART_HEIGHT, CHART_WIDTH, false);
+        } else {
+            System.out.println("Error: Could not add chart image to PDF.");
+        }
+    }
+
+    /**
+     * Writes a "VOID" PDF report in template mode.
+     *
+     * The VOID report is generated once, and every report is a copy of it with the deck ID in its document title.
+     * A deck ID that cannot be stamped in gets a VOID report of its own.
+     *
+     * @param filePath The file path where the PDF will be saved.
+     * @param deckId The 9-digit identifier of the deck.
+     */
+    public static void generateVoidReportFromTemplate(String filePath, String deckId) {
+        byte[] report = stampDeckId(Templates.VOID_REPORT, deckId);
+        if (report == null) {
+            report = voidReport(deckId);
+        }
+
+        try {
+            Files.write(Paths.get(filePath), report);
+            System.out.println("Void Report successfully generated " + filePath);
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    // Lays out the static labels of the deck report
+    private static byte[] reportTemplate() {
+        ByteArrayOutputStream template = new ByteArrayOutputStream();
+
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfWriter(template))) {
+            PdfCanvas canvas = new PdfCanvas(pdfDoc.addNewPage(PageSize.A4));
+            PdfFont font = PdfFontFactory.createFont(StandardFonts.HELVETICA);
+
+            canvas.beginText().setFontAndSize(font, FONT_SIZE);
+            for (int i = 0; i < LABELS.length; i++) {
+                canvas.setTextMatrix(MARGIN, baseline(i)).showText(LABELS[i]);
+            }
+            canvas.endText();
+
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+
+        return template.toByteArray();
+    }
+
+    // Generates the VOID report with a deck ID, or its placeholder, in its document title
+    private static byte[] voidReport(String deckId) {
+        ByteArrayOutputStream template = new ByteArrayOutputStream();
+
+        // The document title is written as plain text, so the placeholder can be found and stamped over
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(template));
+        pdfDoc.getDocumentInfo().setTitle("SpireDeck_" + deckId + "(VOID)");
+        Document document = new Document(pdfDoc);
+        document.add(new Paragraph("VOID"));
+        document.close();
+
+        return template.toByteArray();
+    }
+
+    // Baseline of the i-th line of the deck report
+    static float baseline(int line) {
+        return PageSize.A4.getHeight() - MARGIN - FONT_SIZE - line * LINE_HEIGHT;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target, int from) {
+        for (int i = from; i <= bytes.length - target.length; i++) {
+            int j = 0;
+            while (j < target.length && bytes[i + j] == target[j]) {
+                j++;
+            }
+            if (j == target.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Generates a PDF that includes a chart image and saves it to the specified file path to test pdf geenration.
      *
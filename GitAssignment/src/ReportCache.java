@@ -0,0 +1,213 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Disk cache of finished PDF reports, so a deck that has not changed is never read, charted or rendered again
+
+// A report is stored under a hash of the deck file and the version of the card catalog it was checked against,
+// with a placeholder deck ID that is stamped over with the ID of every copy. When the cached reports take more
+// than the size limit, the reports used least recently are removed. The last time a report was used is its file
+// modification time, so the order is kept between runs.
+
+public class ReportCache {
+
+    // Size limit of the cache when no limit is given
+    protected static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private static final String REPORT = ".pdf";
+    private static final String VOID_REPORT = "(VOID).pdf";
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // Size of every cached report by file name, least recently used first
+    private final LinkedHashMap<String, Long> reports = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Opens the cache in a directory, creating the directory if needed.
+     *
+     * @param directory The directory holding the cached reports.
+     * @param maxBytes The total size the cached reports are kept under.
+     */
+    public ReportCache(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+
+        // Reports already in the directory, oldest use first
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> cached = Files.newDirectoryStream(directory, "*" + REPORT)) {
+            for (Path file : cached) {
+                files.add(file);
+            }
+        }
+        files.sort((a, b) -> lastUsed(a).compareTo(lastUsed(b)));
+        for (Path file : files) {
+            long size = Files.size(file);
+            reports.put(file.getFileName().toString(), size);
+            totalBytes += size;
+        }
+    }
+
+    /**
+     * Hashes a deck file together with the version of the catalog its cards are checked against.
+     *
+     * @param deckFile The path to the deck file.
+     * @param catalogVersion The version of the card catalog, or 0 when cards are only checked against the line rules.
+     * @return The key of the report of the deck.
+     */
+    public static String key(String deckFile, int catalogVersion) throws IOException {
+        // The first 128 bits are plenty to tell decks apart
+        return hex(sha256(deckFile, Integer.toString(catalogVersion).getBytes(StandardCharsets.US_ASCII)), 16);
+    }
+
+    /**
+     * Hashes the content of a deck file, so two deck files have the same hash only if they have the same bytes.
+     *
+     * @param deckFile The path to the deck file.
+     * @return The full SHA-256 hash of the deck file, as 64 hex digits.
+     */
+    public static String contentHash(String deckFile) throws IOException {
+        return hex(sha256(deckFile, new byte[0]), 32);
+    }
+
+    // SHA-256 of the bytes of a file followed by a suffix
+    private static byte[] sha256(String deckFile, byte[] suffix) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(Paths.get(deckFile))) {
+            int read = in.read(buffer);
+            while (read >= 0) {
+                digest.update(buffer, 0, read);
+                read = in.read(buffer);
+            }
+        }
+        digest.update(suffix);
+        return digest.digest();
+    }
+
+    // Writes the first bytes of a hash as hex digits
+    private static String hex(byte[] hash, int bytes) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < bytes; i++) {
+            text.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes the cached report of a deck with the deck ID stamped in, if the deck was reported before.
+     *
+     * @param key The key of the report, see {@link #key(String, int)}.
+     * @param folder The folder the report is written to, ending with a path separator.
+     * @param deckId The 9-digit identifier of the deck.
+     *
+     * @return The file path of the report, or `null` if the report is not cached.
+     */
+    public String copyReport(String key, String folder, String deckId) throws IOException {
+        for (String suffix : new String[]{REPORT, VOID_REPORT}) {
+            String name = key + suffix;
+            synchronized (this) {
+                if (reports.get(name) == null) {
+                    continue;
+                }
+            }
+
+            Path cached = directory.resolve(name);
+            byte[] report;
+            try {
+                report = PDFGenerator.stampDeckId(Files.readAllBytes(cached), deckId);
+                Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException e) {
+                // Removed by another process, the report is generated again
+                forget(name);
+                return null;
+            }
+            if (report == null) {
+                return null;
+            }
+
+            String filePath = folder + "SpireDeck_" + deckId + suffix;
+            Files.write(Paths.get(filePath), report);
+            return filePath;
+        }
+        return null;
+    }
+
+    /**
+     * Stores the report of a deck, removing the reports used least recently while the cache is over its size limit.
+     *
+     * @param key The key of the report, see {@link #key(String, int)}.
+     * @param isVoid `true` if the report is void.
+     * @param report The PDF report with a placeholder deck ID.
+     */
+    public void store(String key, boolean isVoid, byte[] report) throws IOException {
+        String name = key + (isVoid ? VOID_REPORT : REPORT);
+
+        // Write the report next to its final name first, so a reader never sees half a report
+        Path temporary = Files.createTempFile(directory, key, ".tmp");
+        Files.write(temporary, report);
+        Files.move(temporary, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            Long previous = reports.put(name, (long) report.length);
+            totalBytes += report.length - (previous == null ? 0 : previous);
+
+            Iterator<Map.Entry<String, Long>> oldest = reports.entrySet().iterator();
+            while (totalBytes > maxBytes && oldest.hasNext()) {
+                Map.Entry<String, Long> entry = oldest.next();
+                if (!entry.getKey().equals(name)) {
+                    totalBytes -= entry.getValue();
+                    evicted.add(entry.getKey());
+                    oldest.remove();
+                }
+            }
+        }
+
+        for (String file : evicted) {
+            Files.deleteIfExists(directory.resolve(file));
+        }
+    }
+
+    /**
+     * @return The total size of the cached reports in bytes.
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized void forget(String name) {
+        Long size = reports.remove(name);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    private static FileTime lastUsed(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
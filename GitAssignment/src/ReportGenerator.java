@@ -0,0 +1,263 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// Builds the report of a single deck from its DeckResult
+// Every value of the report is passed in or kept in local variables, so reports of different decks
+// can be generated one after another in the same JVM or at the same time on different threads
+
+public class ReportGenerator {
+
+    /**
+     * Generates a 9-digit unique identifier for a deck.
+     *
+     * <p>
+     * The identifier is the next sequential ID of the shared {@link DeckIdService}, so decks reported at the same
+     * time on different threads never get the same identifier and never overwrite each other's report.
+     * </p>
+     *
+     * @param file The name of the input file (used here only as a parameter for compatibility).
+     *
+     * @return A 9-digit string that serves as the unique deck identifier.
+     */
+    public static String generateFileId(String file){
+        ReportStageEvent event = ReportMetrics.begin(ReportMetrics.Stage.DECK_ID);
+        String deckId = DeckIdService.getInstance().nextId();
+        ReportMetrics.end(event);
+        return deckId;
+    }
+
+    /**
+     * Checks if the report of a deck is void, which happens when there are more than 10 invalid cards
+     * or the deck has more than 999 cards.
+     *
+     * @param deck The result of the deck.
+     * @return `true` if the report is void, `false` otherwise.
+     */
+    public static boolean isVoid(DeckResult deck) {
+        return deck.isVoid();
+    }
+
+    /**
+     * Renders the energy cost histogram of a deck and writes its PDF report.
+     * The histogram is never rendered for a void report, which only contains the word VOID.
+     *
+     * @param folder The folder the report is written to, ending with a path separator.
+     * @param deckId The identifier of the deck.
+     * @param deck The result of the deck.
+     *
+     * @return The file path of the report.
+     */
+    public static String generateReport(String folder, String deckId, DeckResult deck) {
+        if (deck.isVoid()) {
+            return writeReport(folder, deckId, deck, null);
+        }
+
+        byte[] chartImage = Histogram.encodeChartAsPNG(Histogram.createChart(Histogram.createDataset(deck.getCostCounts())));
+        return writeReport(folder, deckId, deck, chartImage);
+    }
+
+    /**
+     * Writes the report of a deck file, copying the report of an identical deck from the cache instead of
+     * reading, charting and rendering the deck again.
+     *
+     * @param cache The report cache.
+     * @param folder The folder the report is written to, ending with a path separator.
+     * @param deckId The 9-digit identifier of the deck.
+     * @param deckFile The path to the deck file.
+     * @param cardCheck The extra credit card check against the card catalog, or `null` for none.
+     * @param invalidSampleLimit The number of invalid cards kept as samples.
+     *
+     * @return The file path of the report, or `null` if it could not be written.
+     */
+    public static String generateReport(ReportCache cache, String folder, String deckId, String deckFile,
+                                        CardCheck cardCheck, int invalidSampleLimit) {
+        try {
+            String key = cacheKey(deckFile, cardCheck);
+            String filePath = copyCachedReport(cache, key, folder, deckId);
+            if (filePath != null) {
+                return filePath;
+            }
+
+            DeckResult deck = DeckIngestor.readForReport(deckFile, cardCheck, invalidSampleLimit);
+            deck.getDiagnostics().printSummary(deckFile, System.err);
+            return writeCachedReport(cache, key, folder, deckId, deck);
+
+        } catch (IOException e) {
+            System.err.println(e);
+            return null;
+        }
+    }
+
+    /**
+     * @param deckFile The path to the deck file.
+     * @param cardCheck The extra credit card check against the card catalog, or `null` for none.
+     * @return The key of the report of the deck in a {@link ReportCache}.
+     */
+    public static String cacheKey(String deckFile, CardCheck cardCheck) throws IOException {
+        return ReportCache.key(deckFile, cardCheck == null ? 0 : CardCatalog.getInstance().getVersion());
+    }
+
+    /**
+     * Copies the cached report of a deck, if there is one.
+     *
+     * @param cache The report cache.
+     * @param key The key of the report of the deck, see {@link #cacheKey(String, CardCheck)}.
+     * @param folder The folder the report is written to, ending with a path separator.
+     * @param deckId The 9-digit identifier of the deck.
+     *
+     * @return The file path of the report, or `null` if the report is not cached.
+     */
+    public static String copyCachedReport(ReportCache cache, String key, String folder, String deckId) throws IOException {
+        String filePath = cache.copyReport(key, folder, deckId);
+        if (filePath != null) {
+            System.out.println("PDF report reused from cache " + filePath);
+        }
+        return filePath;
+    }
+
+    /**
+     * Renders the report of a deck, stores it in the cache and writes it.
+     * The histogram is never rendered for a void report, which only contains the word VOID.
+     *
+     * @param cache The report cache.
+     * @param key The key of the report of the deck, see {@link #cacheKey(String, CardCheck)}.
+     * @param folder The folder the report is written to, ending with a path separator.
+     * @param deckId The 9-digit identifier of the deck.
+     * @param deck The result of the deck.
+     *
+     * @return The file path of the report.
+     */
+    public static String writeCachedReport(ReportCache cache, String key, String folder, String deckId,
+                                           DeckResult deck) throws IOException {
+        byte[] chartImage = deck.isVoid() ? null
+                : Histogram.encodeChartAsPNG(Histogram.createChart(Histogram.createDataset(deck.getCostCounts())));
+        return writeCachedReport(cache, key, folder, deckId, deck, chartImage);
+    }
+
+    /**
+     * Writes the report of a deck with an energy cost histogram that is already rendered, and stores it in the cache.
+     *
+     * @param cache The report cache.
+     * @param key The key of the report of the deck, see {@link #cacheKey(String, CardCheck)}.
+     * @param folder The folder the report is written to, ending with a path separator.
+     * @param deckId The 9-digit identifier of the deck.
+     * @param deck The result of the deck.
+     * @param chartImage The PNG image of the energy cost histogram, not used for a void report.
+     *
+     * @return The file path of the report.
+     */
+    public static String writeCachedReport(ReportCache cache, String key, String folder, String deckId,
+                                           DeckResult deck, byte[] chartImage) throws IOException {
+        ReportStageEvent event = ReportMetrics.begin(ReportMetrics.Stage.PDF);
+        byte[] report = deck.isVoid() ? PDFGenerator.generateVoidReportWithPlaceholderId()
+                : PDFGenerator.generateReportWithPlaceholderId(deck.getTotalCost(), chartImage);
+
+        // A deck ID that cannot be stamped in gets a report of its own, timed as a PDF stage of its own
+        byte[] stamped = PDFGenerator.stampDeckId(report, deckId);
+        if (stamped == null) {
+            ReportMetrics.endReport(event, 0);
+            return writeReport(folder, deckId, deck, chartImage);
+        }
+
+        cache.store(key, deck.isVoid(), report);
+
+        String filePath = folder + "SpireDeck_" + deckId + (deck.isVoid() ? "(VOID).pdf" : ".pdf");
+        Files.write(Paths.get(filePath), stamped);
+        ReportMetrics.endReport(event, stamped.length);
+        System.out.println((deck.isVoid() ? "Void Report successfully generated " : "PDF report of cards successfully generated ")
+                + filePath);
+        return filePath;
+    }
+
+    /**
+     * Renders the PDF report of a deck in memory, such as for a response of the {@link ReportServer}.
+     * The histogram is never rendered for a void report, which only contains the word VOID.
+     *
+     * @param deckId The 9-digit identifier of the deck.
+     * @param deck The result of the deck.
+     *
+     * @return The PDF report.
+     */
+    public static byte[] renderReport(String deckId, DeckResult deck) throws IOException {
+        byte[] chartImage = deck.isVoid() ? null
+                : Histogram.encodeChartAsPNG(Histogram.createChart(Histogram.createDataset(deck.getCostCounts())));
+
+        ReportStageEvent event = ReportMetrics.begin(ReportMetrics.Stage.PDF);
+        byte[] report = deck.isVoid() ? PDFGenerator.generateVoidReportWithPlaceholderId()
+                : PDFGenerator.generateReportWithPlaceholderId(deck.getTotalCost(), chartImage);
+
+        // A deck ID that cannot be stamped in gets a report of its own
+        byte[] stamped = PDFGenerator.stampDeckId(report, deckId);
+        if (stamped == null) {
+            stamped = deck.isVoid() ? PDFGenerator.renderVoidReport(deckId)
+                    : PDFGenerator.renderReport(deck.getTotalCost(), deckId, chartImage);
+        }
+        ReportMetrics.endReport(event, stamped.length);
+        return stamped;
+    }
+
+    /**
+     * Loads the card catalog and renders one report of each kind in memory, so the first report of a long running
+     * process, such as the {@link ReportServer} or the {@link DeckWatcher}, does not pay for loading the catalog,
+     * fonts and charts.
+     */
+    public static void warmUp() throws IOException {
+        CardCatalog.getInstance();
+        DeckResult deck = DeckResult.streaming(0);
+        renderReport("000000000", deck);
+        deck.addValidCard(1);
+        renderReport("000000000", deck);
+    }
+
+    /**
+     * Adds the page of a deck to a combined report, with an energy cost histogram that is already rendered.
+     *
+     * @param report The combined report the deck is added to.
+     * @param deckId The identifier of the deck.
+     * @param deck The result of the deck.
+     * @param chartImage The PNG image of the energy cost histogram, not used for a void report.
+     */
+    public static void addToCombinedReport(CombinedReport report, String deckId, DeckResult deck, byte[] chartImage) {
+        // The size of every page is only known once the combined report is closed
+        ReportStageEvent event = ReportMetrics.begin(ReportMetrics.Stage.PDF);
+        report.addDeck(deckId, deck, chartImage);
+        ReportMetrics.endReport(event, 0);
+    }
+
+    /**
+     * Writes the PDF report of a deck.
+     *
+     * A void report will follow the format SpireDeck_id(VOID).pdf and only contain the word VOID,
+     * any other report will follow the format SpireDeck_id.pdf and contain the deck ID, total cost and chart.
+     * Both are written in the template mode of the {@link PDFGenerator}.
+     *
+     * @param folder The folder the report is written to, ending with a path separator.
+     * @param deckId The identifier of the deck.
+     * @param deck The result of the deck.
+     * @param chartImage The PNG image of the energy cost histogram, not used for a void report.
+     *
+     * @return The file path of the report.
+     */
+    public static String writeReport(String folder, String deckId, DeckResult deck, byte[] chartImage) {
+        ReportStageEvent event = ReportMetrics.begin(ReportMetrics.Stage.PDF);
+        StringBuilder filePath = new StringBuilder(folder).append("SpireDeck_").append(deckId);
+
+        // Outputs a void report will follow the format SpireDeck_id(VOID).pdf
+        if (isVoid(deck)) {
+            filePath.append("(VOID).pdf");
+            PDFGenerator.generateVoidReportFromTemplate(filePath.toString(), deckId);
+
+        // Outputs report using the format SpireDeck_id.pdf
+        } else {
+            filePath.append(".pdf");
+
+            // Generate PDF with the deck details and chart
+            PDFGenerator.generateReportFromTemplate(filePath.toString(), deck.getTotalCost(), deckId, chartImage);
+        }
+
+        ReportMetrics.endReport(event, ReportMetrics.isEnabled() ? new File(filePath.toString()).length() : 0);
+        return filePath.toString();
+    }
+}
@@ -0,0 +1,217 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+// Timing and counters of every stage of a deck report: reading, deck ID, chart, chart image and PDF
+
+// Every stage is a JDK Flight Recorder event, see ReportStageEvent. The metrics registry also adds up the time of
+// every stage and the lines, invalid lines, bytes, VOID decks and PDF bytes of every report, once enabled with
+// --metrics. Threads add to their own cells of each counter, so reports on different threads never wait on each
+// other, and while disabled a stage only checks a flag.
+
+// The metrics are written as JSON when the program exits, or served at /metrics by the ReportServer.
+
+public class ReportMetrics {
+
+    /**
+     * The stages of a deck report, in the order they run.
+     */
+    public enum Stage {
+        READ("read"),
+        DECK_ID("deckId"),
+        CHART("chart"),
+        CHART_IMAGE("chartImage"),
+        PDF("pdf");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    private static volatile boolean enabled;
+    private static final long START = System.nanoTime();
+
+    // Total time and number of runs of every stage
+    private static final LongAdder[] STAGE_NANOS = counters(Stage.values().length);
+    private static final LongAdder[] STAGE_RUNS = counters(Stage.values().length);
+
+    private static final LongAdder DECKS = new LongAdder();
+    private static final LongAdder VOID_DECKS = new LongAdder();
+    private static final LongAdder LINES = new LongAdder();
+    private static final LongAdder INVALID_LINES = new LongAdder();
+    private static final LongAdder BYTES_READ = new LongAdder();
+    private static final LongAdder PDF_BYTES = new LongAdder();
+
+    /**
+     * Starts adding up the metrics of every report from now on.
+     */
+    public static void enable() {
+        enabled = true;
+    }
+
+    /**
+     * @return `true` if the metrics of every report are added up, `false` otherwise.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts timing a stage.
+     *
+     * @param stage The stage.
+     * @return The event of the stage, to pass to {@link #end(ReportStageEvent)} when the stage is done.
+     */
+    public static ReportStageEvent begin(Stage stage) {
+        ReportStageEvent event = new ReportStageEvent();
+        event.stage = stage.label;
+        event.type = stage;
+        event.begin();
+        if (enabled) {
+            event.startNanos = System.nanoTime();
+        }
+        return event;
+    }
+
+    /**
+     * Ends the timing of a stage.
+     *
+     * @param event The event of the stage.
+     */
+    public static void end(ReportStageEvent event) {
+        if (enabled && event.startNanos != 0) {
+            STAGE_NANOS[event.type.ordinal()].add(System.nanoTime() - event.startNanos);
+            STAGE_RUNS[event.type.ordinal()].increment();
+        }
+        event.commit();
+    }
+
+    /**
+     * Ends the timing of reading a deck, counting its lines, invalid lines and VOID status.
+     *
+     * @param event The event of the stage.
+     * @param deck The result of the deck.
+     * @param bytesRead The number of bytes of the deck that were read, fewer than its size when reading stopped early.
+     */
+    public static void endRead(ReportStageEvent event, DeckResult deck, long bytesRead) {
+        endRead(event, deck, bytesRead, deck.getCardCount(), deck.getInvalidCount());
+    }
+
+    /**
+     * Ends the timing of reading part of a deck, such as the lines appended since it was last read,
+     * counting only the cards read this time.
+     *
+     * @param event The event of the stage.
+     * @param deck The result of the deck.
+     * @param bytesRead The number of bytes of the deck that were read.
+     * @param cardsRead The number of cards read this time.
+     * @param invalidCardsRead The number of invalid cards read this time.
+     */
+    public static void endRead(ReportStageEvent event, DeckResult deck, long bytesRead, int cardsRead, int invalidCardsRead) {
+        if (enabled) {
+            int badFormat = deck.getDiagnostics().getCount(ValidationDiagnostics.ErrorType.BAD_FORMAT);
+            DECKS.increment();
+            if (deck.isVoid()) {
+                VOID_DECKS.increment();
+            }
+            LINES.add(cardsRead + badFormat);
+            INVALID_LINES.add(invalidCardsRead + badFormat);
+            BYTES_READ.add(bytesRead);
+        }
+        end(event);
+    }
+
+    /**
+     * Ends the timing of writing a PDF report, counting its size.
+     *
+     * @param event The event of the stage.
+     * @param reportBytes The size of the report in bytes, or 0 when it is not known yet.
+     */
+    public static void endReport(ReportStageEvent event, long reportBytes) {
+        if (enabled) {
+            PDF_BYTES.add(reportBytes);
+        }
+        end(event);
+    }
+
+    /**
+     * Writes the metrics as a JSON object.
+     *
+     * Lines per second is per reading thread, as the time of every read is added up whichever thread it ran on.
+     * Chart render time includes drawing the chart and encoding it as an image.
+     *
+     * @return The metrics as JSON.
+     */
+    public static String toJson() {
+        long decks = DECKS.sum();
+        long lines = LINES.sum();
+        long readNanos = STAGE_NANOS[Stage.READ.ordinal()].sum();
+
+        StringBuilder json = new StringBuilder("{\n");
+        field(json, "uptimeMs", number((System.nanoTime() - START) / 1e6));
+        field(json, "decks", Long.toString(decks));
+        field(json, "voidDecks", Long.toString(VOID_DECKS.sum()));
+        field(json, "voidRate", number(ratio(VOID_DECKS.sum(), decks)));
+        field(json, "lines", Long.toString(lines));
+        field(json, "invalidLines", Long.toString(INVALID_LINES.sum()));
+        field(json, "invalidRatio", number(ratio(INVALID_LINES.sum(), lines)));
+        field(json, "linesPerSecond", number(ratio(lines * 1e9, readNanos)));
+        field(json, "bytesRead", Long.toString(BYTES_READ.sum()));
+        field(json, "chartRenderMs", number((STAGE_NANOS[Stage.CHART.ordinal()].sum()
+                + STAGE_NANOS[Stage.CHART_IMAGE.ordinal()].sum()) / 1e6));
+        field(json, "pdfBytesWritten", Long.toString(PDF_BYTES.sum()));
+
+        json.append("  \"stages\": {\n");
+        for (Stage stage : Stage.values()) {
+            long runs = STAGE_RUNS[stage.ordinal()].sum();
+            double totalMs = STAGE_NANOS[stage.ordinal()].sum() / 1e6;
+            json.append("    \"").append(stage.label).append("\": {\"runs\": ").append(runs)
+                    .append(", \"totalMs\": ").append(number(totalMs))
+                    .append(", \"meanMs\": ").append(number(ratio(totalMs, runs))).append('}')
+                    .append(stage.ordinal() < Stage.values().length - 1 ? ",\n" : "\n");
+        }
+        json.append("  }\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Enables the metrics and writes them as JSON to a file when the program exits.
+     *
+     * @param file The file the metrics are written to.
+     */
+    public static void dumpAtExit(Path file) {
+        enable();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                Files.write(file, toJson().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                System.err.println(e);
+            }
+        }));
+    }
+
+    private static void field(StringBuilder json, String name, String value) {
+        json.append("  \"").append(name).append("\": ").append(value).append(",\n");
+    }
+
+    private static double ratio(double count, double total) {
+        return total == 0 ? 0 : count / total;
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static LongAdder[] counters(int count) {
+        LongAdder[] counters = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+}
@@ -0,0 +1,182 @@
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Runs the reports of many decks as a pipeline of stages: read, chart and PDF
+
+// Reading a deck also validates its cards and adds up its totals in the same pass, see DeckIngestor, so it is one
+// stage. Each stage has its own threads and hands decks to the next stage through a bounded queue. A stage that
+// falls behind fills its queue, and the stage before it waits until there is room again, so disk reads and chart
+// rendering overlap across decks while only a bounded number of decks are in memory at once.
+
+public class ReportPipeline {
+
+    // Marks the end of the decks on a queue, one for every thread of the stage taking from the queue
+    private static final DeckJob END = new DeckJob(null);
+
+    private final int readThreads;
+    private final int chartThreads;
+    private final int pdfThreads;
+    private final int queueCapacity;
+
+    private final ExecutorService readers;
+    private final ExecutorService charters;
+    private final ExecutorService writers;
+
+    /**
+     * A deck moving through the pipeline. Each stage fills in its part before handing the deck to the next stage.
+     */
+    static final class DeckJob {
+        final String file;
+        String deckId;
+        String cacheKey;
+        DeckResult deck;
+        byte[] chartImage;
+
+        DeckJob(String file) {
+            this.file = file;
+        }
+    }
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param readThreads The number of threads reading decks, reading mostly waits on the disk.
+     * @param chartThreads The number of threads drawing charts.
+     * @param pdfThreads The number of threads writing PDF reports.
+     * @param queueCapacity The number of decks waiting between two stages before the earlier stage waits.
+     */
+    public ReportPipeline(int readThreads, int chartThreads, int pdfThreads, int queueCapacity) {
+        this.readThreads = readThreads;
+        this.chartThreads = chartThreads;
+        this.pdfThreads = pdfThreads;
+        this.queueCapacity = queueCapacity;
+        this.readers = Executors.newFixedThreadPool(readThreads, daemonThreads());
+        this.charters = Executors.newFixedThreadPool(chartThreads, daemonThreads());
+        this.writers = Executors.newFixedThreadPool(pdfThreads, daemonThreads());
+    }
+
+    /**
+     * Runs every deck file through the pipeline and waits until the last report is written.
+     *
+     * A deck that fails in any stage is reported on the error stream and dropped, the other decks carry on.
+     *
+     * @param deckFiles The deck files to report.
+     * @param read Reads a deck into its job, returning `false` when the deck needs no chart or PDF,
+     *             such as a deck whose report was copied from a cache.
+     * @param write Writes the report of a deck, with its chart image already drawn unless the deck is void.
+     */
+    void run(List<Path> deckFiles, Predicate<DeckJob> read, Consumer<DeckJob> write) throws InterruptedException {
+        BlockingQueue<DeckJob> toRead = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<DeckJob> toChart = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<DeckJob> toWrite = new ArrayBlockingQueue<>(queueCapacity);
+        CountDownLatch done = new CountDownLatch(pdfThreads);
+
+        startStage(readers, readThreads, toRead, toChart, chartThreads, read, null);
+        startStage(charters, chartThreads, toChart, toWrite, pdfThreads, job -> {
+            // A void report only contains the word VOID, so the chart is never drawn for it
+            if (!job.deck.isVoid()) {
+                job.chartImage = Histogram.encodeChartAsPNG(Histogram.createChart(Histogram.createDataset(job.deck.getCostCounts())));
+            }
+            return true;
+        }, null);
+        startStage(writers, pdfThreads, toWrite, null, 0, job -> {
+            write.accept(job);
+            return false;
+        }, done);
+
+        // Waits whenever the readers fall behind, so the deck files are never all queued at once
+        for (Path deckFile : deckFiles) {
+            toRead.put(new DeckJob(deckFile.toString()));
+        }
+        for (int i = 0; i < readThreads; i++) {
+            toRead.put(END);
+        }
+
+        done.await();
+    }
+
+    // Starts the threads of one stage, the last of them to finish passes the end of the decks on to the next stage
+    // A thread always counts itself as finished, even when it is interrupted or stopped by an error, so the next
+    // stage is always released and run() never waits forever
+    private static void startStage(ExecutorService pool, int threads, BlockingQueue<DeckJob> in, BlockingQueue<DeckJob> out,
+                                   int nextThreads, Predicate<DeckJob> work, CountDownLatch done) {
+        AtomicInteger running = new AtomicInteger(threads);
+
+        for (int i = 0; i < threads; i++) {
+            pool.execute(() -> {
+                try {
+                    DeckJob job = in.take();
+                    while (job != END) {
+                        boolean next;
+                        try {
+                            next = work.test(job);
+                        } catch (Throwable e) {
+                            System.err.println("Could not report " + job.file + ": " + e);
+                            next = false;
+                        }
+
+                        // Waits while the next stage is behind
+                        if (next) {
+                            out.put(job);
+                        }
+                        job = in.take();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    if (running.decrementAndGet() == 0 && out != null) {
+                        for (int j = 0; j < nextThreads; j++) {
+                            putUninterruptibly(out, END);
+                        }
+                    }
+                    if (done != null) {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+    }
+
+    // Puts a job on a queue even if the thread is interrupted, keeping the interrupt for later
+    private static void putUninterruptibly(BlockingQueue<DeckJob> queue, DeckJob job) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(job);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the threads of every stage.
+     */
+    public void shutdown() {
+        readers.shutdown();
+        charters.shutdown();
+        writers.shutdown();
+    }
+
+    // Stage threads never keep the JVM running once the batch is done
+    private static ThreadFactory daemonThreads() {
+        return task -> {
+            Thread thread = new Thread(task);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
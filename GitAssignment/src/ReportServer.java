@@ -0,0 +1,188 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Long running report server, so the card catalog, the report templates and the chart and PDF code are loaded
+// and warmed up once instead of once per report
+
+// POST a deck to /report, one "CardName:CardCost" card per line, and the PDF report comes back in the response.
+// Add ?extraCredit=true to also check every card against the Slay the Spire game, the same as MainExtraCredit.
+// The server only listens on the loopback address, so it can only be reached from the same machine.
+
+// GET /metrics gives the time of every report stage and the deck counters as JSON, once enabled with --metrics.
+
+// Usage: java ReportServer [port] [--threads N] [--metrics]
+
+public class ReportServer {
+
+    // Port the server listens on when no port is given
+    protected static final int DEFAULT_PORT = 8080;
+
+    // Requests only need the totals of a deck, so decks are streamed keeping this many invalid cards as samples
+    // and reading stops as soon as a report is void
+    private static final int INVALID_SAMPLES = 20;
+
+    private final HttpServer server;
+    private final ExecutorService workers;
+
+    /**
+     * Creates a server listening on the loopback address.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @param threads The number of requests handled at the same time, ignored when virtual threads are available.
+     */
+    public ReportServer(int port, int threads) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.workers = newWorkers(threads);
+
+        server.createContext("/report", this::report);
+        server.createContext("/health", exchange -> respond(exchange, 200, "text/plain", "OK".getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/metrics", exchange -> respond(exchange, 200, "application/json",
+                ReportMetrics.toJson().getBytes(StandardCharsets.UTF_8)));
+        server.setExecutor(workers);
+    }
+
+    /**
+     * Loads the card catalog, the report templates and the chart code, then starts handling requests.
+     */
+    public void start() throws IOException {
+        ReportGenerator.warmUp();
+        server.start();
+    }
+
+    /**
+     * Stops the server, waiting at most the given time for requests being handled.
+     *
+     * @param delaySeconds The longest time to wait for requests being handled.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        workers.shutdown();
+    }
+
+    /**
+     * @return The port the server listens on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Reads the deck in the body of the request and sends back its PDF report
+    private void report(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "text/plain", "POST a deck to /report".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            // A query that cannot be decoded is an error of the client, not of the report
+            Map<String, String> query;
+            try {
+                query = parseQuery(exchange.getRequestURI().getRawQuery());
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, "text/plain", ("Malformed query: " + e.getMessage()).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            CardCheck cardCheck = "true".equals(query.get("extraCredit")) ? MainExtraCredit::validCardChecker : null;
+
+            DeckResult deck;
+            try (InputStream body = exchange.getRequestBody()) {
+                deck = DeckIngestor.readForReport(body, cardCheck, INVALID_SAMPLES);
+            }
+
+            String deckId = ReportGenerator.generateFileId(null);
+            byte[] report = ReportGenerator.renderReport(deckId, deck);
+
+            String fileName = "SpireDeck_" + deckId + (deck.isVoid() ? "(VOID).pdf" : ".pdf");
+            exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+            exchange.getResponseHeaders().set("X-Deck-Id", deckId);
+            respond(exchange, 200, "application/pdf", report);
+
+        } catch (Exception e) {
+            System.err.println(e);
+
+            // Once the headers are sent the status can no longer change, so the response is cut short instead
+            if (exchange.getResponseCode() == -1) {
+                respond(exchange, 500, "text/plain", String.valueOf(e).getBytes(StandardCharsets.UTF_8));
+            } else {
+                exchange.close();
+            }
+        }
+    }
+
+    // Splits a query such as "extraCredit=true&x=1" into its decoded names and values, the first value of a name counts
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            if (!name.isEmpty()) {
+                parameters.putIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                        URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // Virtual threads when the JVM has them (Java 21 and later), otherwise a fixed pool of platform threads
+    private static ExecutorService newWorkers(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        // Reports are rendered without a screen
+        System.setProperty("java.awt.headless", "true");
+
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        boolean metrics = false;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--metrics")) {
+                metrics = true;
+            } else {
+                port = Integer.parseInt(args[i]);
+            }
+        }
+
+        ReportServer server = new ReportServer(port, threads);
+        server.start();
+
+        // Enabled after the warm up, so the metrics only count real requests
+        if (metrics) {
+            ReportMetrics.enable();
+        }
+        System.out.println("Report server listening on http://localhost:" + server.getPort() + "/report");
+    }
+}
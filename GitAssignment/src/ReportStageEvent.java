@@ -0,0 +1,23 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JDK Flight Recorder event for one stage of a deck report, see ReportMetrics.Stage
+
+// Recorded with: java -XX:StartFlightRecording=filename=report.jfr ...
+// An event costs next to nothing while no recording is running.
+
+@Name("SpireDeck.ReportStage")
+@Label("Report Stage")
+@Category("SpireDeck")
+@Description("Time spent in one stage of a deck report")
+public class ReportStageEvent extends jdk.jfr.Event {
+
+    @Label("Stage")
+    String stage;
+
+    // Not recorded by the flight recorder, only used by the metrics registry
+    transient ReportMetrics.Stage type;
+    transient long startNanos;
+}
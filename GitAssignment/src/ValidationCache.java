@@ -0,0 +1,205 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Remembers the result of checking a card name + energy combo against the card catalog
+// Decks repeat the same few cards, so every repeat of a card is a single hash lookup on its name as written in the
+// deck, which holds the results of the card at every energy cost from 0 to 6
+
+// Only names in the catalog are remembered, so a deck full of made up names cannot fill the cache. The cache holds
+// at most twice as many names as the catalog has cards, which leaves room for a second spelling of every card,
+// such as "Bash" and "bash". This bounds the total, not the spellings of a single card, so a deck writing one card
+// in many ways can use the room of other cards. It can be saved to a file between runs.
+// A saved cache is only loaded back for the same catalog, see CardCatalog.getVersion.
+
+public class ValidationCache {
+
+    // Results of a card check
+    protected static final byte VALID = 0;
+    protected static final byte UNKNOWN_CARD = 1;
+    protected static final byte WRONG_ENERGY = 2;
+
+    // Energy costs a valid card line can have, 0 to 6
+    private static final int COSTS = 7;
+
+    // Names remembered for every card of the catalog, in total
+    private static final int SPELLINGS = 2;
+
+    // A cost whose result is not remembered yet
+    private static final byte UNCHECKED = -1;
+
+    private static final String HEADER = "# ValidationCache ";
+
+    private final CardCatalog catalog;
+
+    // Result at every cost by card name as written in the deck
+    private final Map<String, byte[]> results = new ConcurrentHashMap<>();
+    private final int capacity;
+
+    // Number of names in the results, counted before a name is added so the capacity is never passed
+    private final AtomicInteger names = new AtomicInteger();
+
+    // Holder class so the shared cache is only built the first time it is used
+    private static class Holder {
+        private static final ValidationCache INSTANCE = new ValidationCache(CardCatalog.getInstance());
+    }
+
+    /**
+     * Creates an empty cache for a catalog.
+     *
+     * @param catalog The catalog the cards are checked against.
+     */
+    public ValidationCache(CardCatalog catalog) {
+        this.catalog = catalog;
+        this.capacity = Math.max(catalog.size(), 1) * SPELLINGS;
+    }
+
+    /**
+     * Returns the shared cache of the shared card catalog.
+     *
+     * @return The shared validation cache.
+     */
+    public static ValidationCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Checks a card against the catalog, using the remembered result if the same card and cost were checked before.
+     *
+     * @param cardName The trimmed name of the card.
+     * @param cardCost The trimmed cost of the card.
+     * @return {@link #VALID}, {@link #UNKNOWN_CARD} or {@link #WRONG_ENERGY}.
+     */
+    public byte check(String cardName, String cardCost) {
+        byte[] costs = results.get(cardName);
+        int cost = cost(cardCost);
+        if (costs != null && cost >= 0 && costs[cost] != UNCHECKED) {
+            return costs[cost];
+        }
+
+        if (!catalog.isCard(cardName)) {
+            return UNKNOWN_CARD;
+        }
+        byte checked = catalog.isValidCombo(cardName, cardCost) ? VALID : WRONG_ENERGY;
+
+        // Once full, results are still correct but no longer remembered
+        if (cost >= 0) {
+            if (costs == null) {
+                costs = remember(cardName);
+            }
+            if (costs != null) {
+                costs[cost] = checked;
+            }
+        }
+        return checked;
+    }
+
+    /**
+     * @return The number of remembered results.
+     */
+    public int size() {
+        int size = 0;
+        for (byte[] costs : results.values()) {
+            for (byte result : costs) {
+                if (result != UNCHECKED) {
+                    size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Loads the results saved by {@link #save(Path)}. Nothing is loaded if the file does not exist
+     * or was saved for a different catalog.
+     *
+     * @param file The path to the saved cache.
+     */
+    public void load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            // Results of another catalog may no longer be right
+            String header = reader.readLine();
+            if (header == null || !header.equals(HEADER + catalog.getVersion())) {
+                return;
+            }
+
+            // Each line is "name:cost:result", and card names never contain a colon
+            String line = reader.readLine();
+            while (line != null) {
+                int last = line.lastIndexOf(':');
+                int middle = line.lastIndexOf(':', last - 1);
+                String cardName = middle > 0 ? line.substring(0, middle) : null;
+                int cost = middle > 0 ? cost(line.substring(middle + 1, last)) : -1;
+
+                // Only results of catalog names are remembered, the same as check()
+                byte[] costs = cost >= 0 && catalog.isCard(cardName) ? remember(cardName) : null;
+                if (costs != null) {
+                    costs[cost] = Byte.parseByte(line.substring(last + 1));
+                }
+                line = reader.readLine();
+            }
+
+        // Handle I/O exceptions during file reading, the cache then starts empty
+        } catch (IOException | NumberFormatException e) {
+            System.err.println(e);
+        }
+    }
+
+    /**
+     * Saves every remembered result, so the next run can start with them.
+     *
+     * @param file The path the cache is saved to.
+     */
+    public void save(Path file) {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER + catalog.getVersion());
+            writer.newLine();
+
+            for (Map.Entry<String, byte[]> costs : results.entrySet()) {
+                for (int cost = 0; cost < COSTS; cost++) {
+                    byte result = costs.getValue()[cost];
+                    if (result != UNCHECKED) {
+                        writer.write(costs.getKey() + ':' + cost + ':' + result);
+                        writer.newLine();
+                    }
+                }
+            }
+
+        // Handle I/O exceptions during file writing
+        } catch (IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    // The results of a card name, added if there is still room, or null once the cache is full
+    private byte[] remember(String cardName) {
+        return results.computeIfAbsent(cardName,
+                name -> names.getAndUpdate(count -> count < capacity ? count + 1 : count) < capacity ? unchecked() : null);
+    }
+
+    // The energy cost of a card line as an index, or -1 when it is not a single digit from 0 to 6
+    private static int cost(String cardCost) {
+        if (cardCost == null || cardCost.length() != 1) {
+            return -1;
+        }
+        int cost = cardCost.charAt(0) - '0';
+        return cost >= 0 && cost < COSTS ? cost : -1;
+    }
+
+    private static byte[] unchecked() {
+        byte[] costs = new byte[COSTS];
+        Arrays.fill(costs, UNCHECKED);
+        return costs;
+    }
+}
@@ -0,0 +1,244 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Collects the validation errors of a deck instead of printing every bad card to System.err
+
+// Every error is counted by type, but only the first few are kept with their card name and cost.
+// Messages are only formatted for the errors that are printed in the summary at the end of the deck.
+// Errors can be recorded from several threads at once. The chunks of the ChunkedDeckReader each use their own
+// collector instead, which are added together in file order so the kept errors are in the order of the lines.
+
+public class ValidationDiagnostics {
+
+    // Number of errors kept with their details when no limit is given
+    protected static final int DEFAULT_LIMIT = 20;
+
+    /**
+     * The types of validation error, in the order they are checked.
+     */
+    public enum ErrorType {
+        BAD_FORMAT("Invalid line format"),
+        EMPTY_NAME("Empty card name"),
+        BAD_NAME("Invalid card name format"),
+        BAD_COST("Invalid card cost format"),
+        COST_RANGE("Card cost outside 0 - 6"),
+        UNKNOWN_CARD("Unknown card"),
+        WRONG_ENERGY("Wrong card energy");
+
+        private final String label;
+
+        ErrorType(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * A single recorded validation error, formatted into a message only when it is printed.
+     */
+    public static class ValidationError {
+        private final ErrorType type;
+        private final String cardName;
+        private final String cardCost;
+        private final String validEnergies;
+
+        private ValidationError(ErrorType type, String cardName, String cardCost, String validEnergies) {
+            this.type = type;
+            this.cardName = cardName;
+            this.cardCost = cardCost;
+            this.validEnergies = validEnergies;
+        }
+
+        public ErrorType getType() {
+            return type;
+        }
+
+        public String getCardName() {
+            return cardName;
+        }
+
+        public String getCardCost() {
+            return cardCost;
+        }
+
+        /**
+         * @return The message describing the error.
+         */
+        public String getMessage() {
+            switch (type) {
+                case BAD_FORMAT:
+                    return "Invalid line format: " + cardName;
+                case EMPTY_NAME:
+                    return "Invalid card name: '" + cardName + "'. It cannot be empty or only spaces.";
+                case BAD_NAME:
+                    return "Invalid card name format: '" + cardName + "'. Card names should only contain alphabetic characters and spaces.";
+                case BAD_COST:
+                    return "Invalid card cost format for '" + cardName + "': " + cardCost + ". It must be a number.";
+                case COST_RANGE:
+                    return "Invalid card cost for '" + cardName + "': " + cardCost + ". Card energy must be between 0 and 6.";
+                case UNKNOWN_CARD:
+                    // Only looked up for the errors that are printed, see CardSuggester
+                    String suggestions = CardSuggester.getInstance().didYouMean(cardName);
+                    return "CardName: '" + cardName + "' is not a valid card in the Splay the Spire Game"
+                            + (suggestions.isEmpty() ? "" : ". " + suggestions);
+                default:
+                    return "CardName: '" + cardName + "' and CardEnergy: '" + cardCost + "' are not valid combinations in the Splay the Spire Game."
+                            + " Valid Energy for your card: '" + cardName + "' are: " + validEnergies;
+            }
+        }
+    }
+
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(ErrorType.values().length);
+    private final List<ValidationError> errors = new ArrayList<>();
+    private final int limit;
+
+    /**
+     * Creates a collector keeping the details of the first {@link #DEFAULT_LIMIT} errors.
+     */
+    public ValidationDiagnostics() {
+        this(DEFAULT_LIMIT);
+    }
+
+    /**
+     * Creates a collector.
+     *
+     * @param limit The number of errors kept with their details, every error is still counted.
+     */
+    public ValidationDiagnostics(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * @return `true` once no more errors are kept with their details, so callers only build
+     *         the card name and cost Strings of an error while they are still needed.
+     */
+    public boolean isFull() {
+        synchronized (errors) {
+            return errors.size() >= limit;
+        }
+    }
+
+    /**
+     * Records a validation error.
+     *
+     * @param type The type of the error.
+     * @param cardName The name of the card, or the whole line for a badly formatted line.
+     * @param cardCost The cost of the card.
+     */
+    public void record(ErrorType type, String cardName, String cardCost) {
+        record(type, cardName, cardCost, null);
+    }
+
+    /**
+     * Records a validation error.
+     *
+     * @param type The type of the error.
+     * @param cardName The name of the card, or the whole line for a badly formatted line.
+     * @param cardCost The cost of the card.
+     * @param validEnergies The valid energy costs of the card for a wrong energy error, separated by commas.
+     */
+    public void record(ErrorType type, String cardName, String cardCost, String validEnergies) {
+        counts.incrementAndGet(type.ordinal());
+
+        synchronized (errors) {
+            if (errors.size() < limit) {
+                errors.add(new ValidationError(type, cardName, cardCost, validEnergies));
+            }
+        }
+    }
+
+    /**
+     * Counts a validation error without keeping its details.
+     *
+     * @param type The type of the error.
+     */
+    public void count(ErrorType type) {
+        counts.incrementAndGet(type.ordinal());
+    }
+
+    /**
+     * Adds the errors of another collector after the errors of this one, keeping details up to the limit of this one.
+     *
+     * @param other The collector of the errors that come after these.
+     */
+    public void addAll(ValidationDiagnostics other) {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.addAndGet(i, other.counts.get(i));
+        }
+
+        List<ValidationError> otherErrors = other.getErrors();
+        synchronized (errors) {
+            for (int i = 0; i < otherErrors.size() && errors.size() < limit; i++) {
+                errors.add(otherErrors.get(i));
+            }
+        }
+    }
+
+    /**
+     * @param type The type of error.
+     * @return The number of errors of that type.
+     */
+    public int getCount(ErrorType type) {
+        return counts.get(type.ordinal());
+    }
+
+    /**
+     * @return The total number of errors of every type.
+     */
+    public int getTotalCount() {
+        int total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @return A copy of the errors kept with their details, in the order they were recorded.
+     */
+    public List<ValidationError> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    /**
+     * Prints the kept errors and the number of errors of each type with a single write.
+     * Nothing is printed when there were no errors.
+     *
+     * @param title The name of the deck the errors belong to.
+     * @param out The stream the summary is printed to.
+     */
+    public void printSummary(String title, PrintStream out) {
+        int total = getTotalCount();
+        if (total == 0) {
+            return;
+        }
+
+        StringBuilder summary = new StringBuilder();
+        summary.append("Validation summary for ").append(title).append(": ").append(total).append(" errors")
+                .append(System.lineSeparator());
+
+        for (ValidationError error : getErrors()) {
+            summary.append("  ").append(error.getMessage()).append(System.lineSeparator());
+        }
+        if (total > limit) {
+            summary.append("  ... ").append(total - limit).append(" more").append(System.lineSeparator());
+        }
+
+        summary.append("  By type:").append(System.lineSeparator());
+        for (ErrorType type : ErrorType.values()) {
+            int count = getCount(type);
+            if (count > 0) {
+                summary.append("    ").append(type.getLabel()).append(": ").append(count).append(System.lineSeparator());
+            }
+        }
+
+        out.print(summary);
+    }
+}